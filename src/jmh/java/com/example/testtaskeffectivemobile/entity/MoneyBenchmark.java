@@ -0,0 +1,68 @@
+package com.example.testtaskeffectivemobile.entity;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+// Шаг перевода в памяти, как в TransferLedger.apply: проверка остатка, списание и зачисление.
+// Аллокации на операцию смотреть с -prof gc (gc.alloc.rate.norm)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoneyBenchmark {
+
+    private static final int CARDS = 64;
+
+    private final BigDecimal[] decimalBalances = new BigDecimal[CARDS];
+    private final Money[] moneyBalances = new Money[CARDS];
+    private BigDecimal decimalAmount;
+    private Money moneyAmount;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < CARDS; i++) {
+            decimalBalances[i] = new BigDecimal("1000000.00");
+            moneyBalances[i] = Money.of(decimalBalances[i]);
+        }
+        decimalAmount = new BigDecimal("12.34");
+        moneyAmount = Money.of(decimalAmount);
+    }
+
+    @Benchmark
+    public boolean bigDecimalTransfer() {
+        int from = next++ & (CARDS - 1);
+        int to = (from + 1) & (CARDS - 1);
+        if (decimalBalances[from].compareTo(decimalAmount) < 0) {
+            return false;
+        }
+        decimalBalances[from] = decimalBalances[from].subtract(decimalAmount);
+        decimalBalances[to] = decimalBalances[to].add(decimalAmount);
+        return true;
+    }
+
+    @Benchmark
+    public boolean moneyTransfer() {
+        int from = next++ & (CARDS - 1);
+        int to = (from + 1) & (CARDS - 1);
+        if (moneyBalances[from].isLessThan(moneyAmount)) {
+            return false;
+        }
+        moneyBalances[from] = moneyBalances[from].minus(moneyAmount);
+        moneyBalances[to] = moneyBalances[to].plus(moneyAmount);
+        return true;
+    }
+}
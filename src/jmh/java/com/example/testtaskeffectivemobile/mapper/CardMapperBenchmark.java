@@ -0,0 +1,70 @@
+package com.example.testtaskeffectivemobile.mapper;
+
+import com.example.testtaskeffectivemobile.dto.response.CardDTO;
+import com.example.testtaskeffectivemobile.entity.Card;
+import com.example.testtaskeffectivemobile.entity.CardStatus;
+import com.example.testtaskeffectivemobile.entity.Money;
+import com.example.testtaskeffectivemobile.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardMapperBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private final CardMapper cardMapper = new CardMapper();
+    private List<Card> page;
+
+    @Setup
+    public void setUp() {
+        final User user = User.builder()
+                .id(UUID.randomUUID().toString())
+                .email("user@example.com")
+                .build();
+        page = IntStream.range(0, PAGE_SIZE)
+                .<Card>mapToObj(i -> Card.builder()
+                        .id(UUID.randomUUID().toString())
+                        .cardNumber(String.format("4000%012d", i))
+                        .activationDate(LocalDate.now())
+                        .expirationDate(LocalDate.now().plusYears(4))
+                        .status(CardStatus.ACTIVE)
+                        .balance(new Money((1000 + i) * 100L))
+                        .user(user)
+                        .build())
+                .toList();
+    }
+
+    @Benchmark
+    public CardDTO toDTO() {
+        return cardMapper.toDTO(page.get(0));
+    }
+
+    @Benchmark
+    public void toDTOPage(final Blackhole blackhole) {
+        for (final Card card : page) {
+            blackhole.consume(cardMapper.toDTO(card));
+        }
+    }
+}
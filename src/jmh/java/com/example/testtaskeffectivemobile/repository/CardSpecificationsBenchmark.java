@@ -0,0 +1,95 @@
+package com.example.testtaskeffectivemobile.repository;
+
+import com.example.testtaskeffectivemobile.dto.request.CardFilterRequest;
+import com.example.testtaskeffectivemobile.entity.Card;
+import com.example.testtaskeffectivemobile.entity.CardStatus;
+import com.example.testtaskeffectivemobile.entity.Role;
+import com.example.testtaskeffectivemobile.entity.User;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Построение предикатов фильтра карт на CriteriaBuilder Hibernate, метаданные собираются без подключения к БД
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardSpecificationsBenchmark {
+
+    private StandardServiceRegistry registry;
+    private SessionFactory sessionFactory;
+    private CriteriaBuilder criteriaBuilder;
+    private CardFilterRequest emptyFilter;
+    private CardFilterRequest fullFilter;
+    private String userId;
+
+    @Setup
+    public void setUp() {
+        registry = new StandardServiceRegistryBuilder()
+                .applySetting("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect")
+                .applySetting("hibernate.boot.allow_jdbc_metadata_access", "false")
+                .applySetting("hibernate.hbm2ddl.auto", "none")
+                .build();
+        sessionFactory = new MetadataSources(registry)
+                .addAnnotatedClass(Card.class)
+                .addAnnotatedClass(User.class)
+                .addAnnotatedClass(Role.class)
+                .buildMetadata()
+                .buildSessionFactory();
+        criteriaBuilder = sessionFactory.getCriteriaBuilder();
+        emptyFilter = new CardFilterRequest();
+        fullFilter = CardFilterRequest.builder()
+                .cardNumber("1234")
+                .status(CardStatus.ACTIVE)
+                .build();
+        userId = UUID.randomUUID().toString();
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+        StandardServiceRegistryBuilder.destroy(registry);
+    }
+
+    @Benchmark
+    public Predicate userCardsEmptyFilter() {
+        return toPredicate(emptyFilter, userId);
+    }
+
+    @Benchmark
+    public Predicate userCardsFullFilter() {
+        return toPredicate(fullFilter, userId);
+    }
+
+    @Benchmark
+    public Predicate allCardsFullFilter() {
+        return toPredicate(fullFilter, null);
+    }
+
+    private Predicate toPredicate(final CardFilterRequest filter, final String ownerId) {
+        final CriteriaQuery<Card> query = criteriaBuilder.createQuery(Card.class);
+        final Root<Card> root = query.from(Card.class);
+        return CardSpecifications.byFilter(filter, ownerId).toPredicate(root, query, criteriaBuilder);
+    }
+}
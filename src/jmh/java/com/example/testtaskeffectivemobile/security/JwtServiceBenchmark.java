@@ -0,0 +1,106 @@
+package com.example.testtaskeffectivemobile.security;
+
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Подпись и проверка JWT без Redis: отзыв и поколение токенов заменены заглушками
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private static final String USER_NAME = "user@example.com";
+    private static final long EXPIRATION = 3600000L;
+
+    @Param({"RS256", "ES256", "EdDSA"})
+    public JwtAlgorithm algorithm;
+
+    private JwtService cachedJwtService;
+    private JwtService uncachedJwtService;
+    private Map<String, Object> claims;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final SigningKeyRing keyRing = new SigningKeyRing("", "", algorithm, new ClaimsCache(0));
+        cachedJwtService = jwtService(keyRing, new ClaimsCache(10000));
+        uncachedJwtService = jwtService(keyRing, new ClaimsCache(0));
+        claims = Map.of(
+                "token_type", "ACCESS_TOKEN",
+                "user_id", UUID.randomUUID().toString(),
+                "token_epoch", 0L,
+                "role_list", "ROLE_USER");
+        token = cachedJwtService.buildToken(UUID.randomUUID().toString(), USER_NAME, claims, EXPIRATION);
+    }
+
+    @Benchmark
+    public String buildToken() {
+        return cachedJwtService.buildToken(UUID.randomUUID().toString(), USER_NAME, claims, EXPIRATION);
+    }
+
+    @Benchmark
+    public Claims extractClaimsCached() {
+        return cachedJwtService.extractClaims(token);
+    }
+
+    @Benchmark
+    public Claims extractClaimsUncached() {
+        return uncachedJwtService.extractClaims(token);
+    }
+
+    @Benchmark
+    public boolean validateTokenCached() {
+        return cachedJwtService.validateToken(token, USER_NAME);
+    }
+
+    @Benchmark
+    public boolean validateTokenUncached() {
+        return uncachedJwtService.validateToken(token, USER_NAME);
+    }
+
+    private static JwtService jwtService(final SigningKeyRing keyRing, final ClaimsCache claimsCache) {
+        return new JwtService(new ActiveTokenStore(), new ConstantEpochService(), null, claimsCache, keyRing);
+    }
+
+    private static final class ActiveTokenStore extends TokenStore {
+
+        ActiveTokenStore() {
+            super(null);
+        }
+
+        @Override
+        public boolean isAccessTokenActive(final String tokenId) {
+            return tokenId != null;
+        }
+    }
+
+    private static final class ConstantEpochService extends TokenEpochService {
+
+        ConstantEpochService() {
+            super(null, 0L, 0);
+        }
+
+        @Override
+        public long currentEpoch(final String userName) {
+            return 0L;
+        }
+    }
+}
@@ -1,19 +1,41 @@
 package com.example.testtaskeffectivemobile.config;
 
+import com.example.testtaskeffectivemobile.security.BcryptStrengthCalibrator;
+import com.example.testtaskeffectivemobile.security.BoundedPasswordEncoder;
+import com.example.testtaskeffectivemobile.security.PasswordHashingExecutor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.Map;
+
 @Configuration
 public class BeansConfig {
 
+    private static final String BCRYPT = "bcrypt";
+
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            final PasswordHashingExecutor passwordHashingExecutor,
+            @Value("${security.password-hashing.strength:0}") final int strength,
+            @Value("${security.password-hashing.target-millis:250}") final long targetMillis,
+            @Value("${security.password-hashing.min-strength:10}") final int minStrength,
+            @Value("${security.password-hashing.max-strength:14}") final int maxStrength) {
+        final int bcryptStrength = strength > 0
+                ? strength
+                : BcryptStrengthCalibrator.calibrate(targetMillis, minStrength, maxStrength);
+        // Новые хеши пишутся с префиксом {bcrypt}, старые хеши без префикса проверяются BCrypt по умолчанию
+        // и перехешируются при успешном логине (UserService.updatePassword)
+        final DelegatingPasswordEncoder delegatingEncoder = new DelegatingPasswordEncoder(
+                BCRYPT, Map.of(BCRYPT, new BCryptPasswordEncoder(bcryptStrength)));
+        delegatingEncoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder(bcryptStrength));
+        return new BoundedPasswordEncoder(delegatingEncoder, passwordHashingExecutor);
     }
 
     @Bean
@@ -0,0 +1,22 @@
+package com.example.testtaskeffectivemobile.config;
+
+import com.example.testtaskeffectivemobile.security.TokenEpochService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+public class RedisConfig {
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(
+            final RedisConnectionFactory connectionFactory,
+            final TokenEpochService tokenEpochService) {
+        final RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(tokenEpochService, new ChannelTopic(TokenEpochService.CHANNEL));
+        return container;
+    }
+}
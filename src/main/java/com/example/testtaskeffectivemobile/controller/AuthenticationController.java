@@ -31,7 +31,8 @@ public class AuthenticationController {
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Успешная аутентификация"),
-            @ApiResponse(responseCode = "401", description = "Неверные учетные данные")
+            @ApiResponse(responseCode = "401", description = "Неверные учетные данные"),
+            @ApiResponse(responseCode = "503", description = "Пул хеширования паролей перегружен, повторите позже")
     })
     public ResponseEntity<AuthenticationResponse> login(
             @RequestBody @Valid final AuthenticationRequest authenticationRequest
@@ -60,7 +61,8 @@ public class AuthenticationController {
     )
     @ApiResponses({
             @ApiResponse(responseCode = "201", description = "Пользователь успешно зарегистрирован"),
-            @ApiResponse(responseCode = "400", description = "Неверные данные регистрации или email уже существует")
+            @ApiResponse(responseCode = "400", description = "Неверные данные регистрации или email уже существует"),
+            @ApiResponse(responseCode = "503", description = "Пул хеширования паролей перегружен, повторите позже")
     })
     public ResponseEntity<Void> register(
             @RequestBody @Valid final RegistrationRequest request
@@ -72,11 +74,12 @@ public class AuthenticationController {
     @PostMapping("/refresh")
     @Operation(
             summary = "Обновление токена",
-            description = "Публичный endpoint. Обновление access token с помощью refresh token."
+            description = "Публичный endpoint. Выдает новую пару access и refresh token, предъявленный refresh token становится недействительным. "
+                    + "Повторное предъявление уже использованного refresh token отзывает все сессии пользователя."
     )
     @ApiResponses({
-            @ApiResponse(responseCode = "200", description = "Токен успешно обновлен"),
-            @ApiResponse(responseCode = "401", description = "Неверный или просроченный refresh token")
+            @ApiResponse(responseCode = "200", description = "Токены успешно обновлены"),
+            @ApiResponse(responseCode = "401", description = "Неверный, просроченный или повторно использованный refresh token")
     })
     public ResponseEntity<AuthenticationResponse> refresh(
             @RequestBody @Valid final RefreshRequest request
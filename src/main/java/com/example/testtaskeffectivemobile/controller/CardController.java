@@ -1,11 +1,26 @@
 package com.example.testtaskeffectivemobile.controller;
 
 import com.example.testtaskeffectivemobile.dto.request.CardCreateRequest;
+import com.example.testtaskeffectivemobile.dto.request.CardExportFormat;
 import com.example.testtaskeffectivemobile.dto.request.CardFilterRequest;
+import com.example.testtaskeffectivemobile.dto.request.CardPageRequest;
+import com.example.testtaskeffectivemobile.dto.request.CardTransactionPageRequest;
+import com.example.testtaskeffectivemobile.dto.request.TransferBatchRequest;
 import com.example.testtaskeffectivemobile.dto.request.TransferRequest;
 import com.example.testtaskeffectivemobile.dto.response.CardDTO;
+import com.example.testtaskeffectivemobile.dto.response.CardPageResponse;
+import com.example.testtaskeffectivemobile.dto.response.CardTransactionPageResponse;
+import com.example.testtaskeffectivemobile.dto.response.TransferBatchResponse;
 import com.example.testtaskeffectivemobile.entity.User;
+import com.example.testtaskeffectivemobile.security.CallerContext;
+import com.example.testtaskeffectivemobile.service.CardExportQuery;
+import com.example.testtaskeffectivemobile.service.CardExportService;
+import com.example.testtaskeffectivemobile.service.CardIssueService;
 import com.example.testtaskeffectivemobile.service.CardService;
+import com.example.testtaskeffectivemobile.service.CardTransactionService;
+import com.example.testtaskeffectivemobile.service.TransferBatchService;
+import com.example.testtaskeffectivemobile.service.TransferEngine;
+import com.example.testtaskeffectivemobile.service.TransferIdempotencyStore;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -13,13 +28,21 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/v1/cards")
@@ -29,6 +52,12 @@ import java.util.List;
 public class CardController {
 
     private final CardService cardService;
+    private final CardExportService cardExportService;
+    private final CardIssueService cardIssueService;
+    private final CardTransactionService cardTransactionService;
+    private final TransferBatchService transferBatchService;
+    private final TransferIdempotencyStore transferIdempotencyStore;
+    private final ObjectProvider<TransferEngine> transferEngine;
 
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
@@ -46,19 +75,88 @@ public class CardController {
         return cardService.createCard(request);
     }
 
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Выпустить карты пакетом",
+            description = "Только для администраторов. Выпускает карту на каждый элемент массива. "
+                    + "Результаты возвращаются потоком NDJSON по одной строке на карту в порядке запроса."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Выпуск начат"),
+            @ApiResponse(responseCode = "400", description = "Пустой или слишком большой пакет"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен - требуется роль ADMIN")
+    })
+    public ResponseEntity<StreamingResponseBody> issueCards(@RequestBody List<CardCreateRequest> requests) {
+        cardIssueService.validateBatch(requests);
+        return issueResponse(requests);
+    }
+
+    @PostMapping(value = "/bulk", consumes = "text/csv")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Выпустить карты из CSV",
+            description = "Только для администраторов. Строки userId,initialBalance, заголовок необязателен. "
+                    + "Результаты возвращаются потоком NDJSON по одной строке на карту в порядке файла."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Выпуск начат"),
+            @ApiResponse(responseCode = "400", description = "Ошибка в CSV, пустой или слишком большой пакет"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен - требуется роль ADMIN")
+    })
+    public ResponseEntity<StreamingResponseBody> issueCardsCsv(InputStream body) {
+        return issueResponse(cardIssueService.readCsv(body));
+    }
+
+    private ResponseEntity<StreamingResponseBody> issueResponse(List<CardCreateRequest> requests) {
+        StreamingResponseBody body = out -> cardIssueService.issue(requests, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(CardExportFormat.NDJSON.getContentType()))
+                .body(body);
+    }
+
     @GetMapping("/admin")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(
             summary = "Получить все карты",
-            description = "Только для администраторов. Возвращает список всех карт в системе с возможностью фильтрации."
+            description = "Только для администраторов. Возвращает страницу карт в системе с возможностью фильтрации. "
+                    + "Для следующей страницы передайте nextCursor из ответа в параметре cursor."
     )
     @ApiResponses({
-            @ApiResponse(responseCode = "200", description = "Список карт успешно получен"),
+            @ApiResponse(responseCode = "200", description = "Страница карт успешно получена"),
+            @ApiResponse(responseCode = "400", description = "Неверный курсор"),
             @ApiResponse(responseCode = "403", description = "Доступ запрещен - требуется роль ADMIN")
     })
-    public List<CardDTO> getAllCards(
-            @Parameter(description = "Параметры фильтрации карт") CardFilterRequest filter) {
-        return cardService.getAllCards(filter);
+    public CardPageResponse getAllCards(
+            @Parameter(description = "Параметры фильтрации карт") CardFilterRequest filter,
+            @Parameter(description = "Курсор, размер страницы и сортировка") CardPageRequest page) {
+        return cardService.getAllCards(filter, page);
+    }
+
+    @GetMapping("/admin/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Выгрузить карты",
+            description = "Только для администраторов. Потоковая выгрузка всех карт, подходящих под фильтр, "
+                    + "в формате NDJSON (по одной карте в строке) или CSV. Номера карт маскируются."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Выгрузка начата"),
+            @ApiResponse(responseCode = "400", description = "Неверный фильтр по номеру карты"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен - требуется роль ADMIN")
+    })
+    public ResponseEntity<StreamingResponseBody> exportCards(
+            @Parameter(description = "Параметры фильтрации карт") CardFilterRequest filter,
+            @Parameter(description = "Формат выгрузки") @RequestParam(defaultValue = "NDJSON") CardExportFormat format) {
+        CardExportQuery query = cardExportService.prepare(filter);
+        StreamingResponseBody body = out -> cardExportService.export(query, format, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("cards." + format.getExtension())
+                        .build()
+                        .toString())
+                .body(body);
     }
 
     @PatchMapping("/{cardId}/block")
@@ -75,8 +173,7 @@ public class CardController {
     public CardDTO blockCard(
             @Parameter(description = "ID карты", required = true) @PathVariable String cardId,
             Authentication authentication) {
-        String userId = getUserId(authentication);
-        return cardService.blockCard(cardId, userId);
+        return cardService.blockCard(cardId, CallerContext.from(authentication));
     }
 
     @PatchMapping("/{cardId}/activate")
@@ -93,8 +190,26 @@ public class CardController {
     public CardDTO activateCard(
             @Parameter(description = "ID карты", required = true) @PathVariable String cardId,
             Authentication authentication) {
-        String userId = getUserId(authentication);
-        return cardService.activateCard(cardId, userId);
+        return cardService.activateCard(cardId, CallerContext.from(authentication));
+    }
+
+    @PatchMapping("/{cardId}/balance-slots")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(
+            summary = "Настроить слоты баланса",
+            description = "Только для администраторов. Делит баланс карты с большим потоком зачислений на slots строк, "
+                    + "чтобы параллельные зачисления не ждали блокировку одной строки. 0 возвращает обычный режим."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Слоты баланса настроены"),
+            @ApiResponse(responseCode = "400", description = "Недопустимое число слотов"),
+            @ApiResponse(responseCode = "403", description = "Доступ запрещен - требуется роль ADMIN"),
+            @ApiResponse(responseCode = "404", description = "Карта не найдена")
+    })
+    public CardDTO setBalanceSlots(
+            @Parameter(description = "ID карты", required = true) @PathVariable String cardId,
+            @Parameter(description = "Число слотов, 0 - обычная карта", required = true) @RequestParam int slots) {
+        return cardService.setBalanceSlots(cardId, slots);
     }
 
     @DeleteMapping("/{cardId}")
@@ -117,17 +232,20 @@ public class CardController {
     @GetMapping("/my")
     @Operation(
             summary = "Получить мои карты",
-            description = "Для всех авторизованных пользователей. Возвращает карты текущего пользователя."
+            description = "Для всех авторизованных пользователей. Возвращает страницу карт текущего пользователя. "
+                    + "Для следующей страницы передайте nextCursor из ответа в параметре cursor."
     )
     @ApiResponses({
-            @ApiResponse(responseCode = "200", description = "Список карт успешно получен"),
+            @ApiResponse(responseCode = "200", description = "Страница карт успешно получена"),
+            @ApiResponse(responseCode = "400", description = "Неверный курсор"),
             @ApiResponse(responseCode = "401", description = "Пользователь не авторизован")
     })
-    public List<CardDTO> getMyCards(
+    public CardPageResponse getMyCards(
             @Parameter(description = "Параметры фильтрации") CardFilterRequest filter,
+            @Parameter(description = "Курсор, размер страницы и сортировка") CardPageRequest page,
             Authentication authentication) {
         String userId = getUserId(authentication);
-        return cardService.getUserCards(filter, userId);
+        return cardService.getUserCards(filter, page, userId);
     }
 
     @GetMapping("/{cardId}")
@@ -143,26 +261,90 @@ public class CardController {
     public CardDTO getCard(
             @Parameter(description = "ID карты", required = true) @PathVariable String cardId,
             Authentication authentication) {
-        String userId = getUserId(authentication);
-        return cardService.getCardById(cardId, userId);
+        return cardService.getCardById(cardId, CallerContext.from(authentication));
+    }
+
+    @GetMapping("/{cardId}/transactions")
+    @Operation(
+            summary = "История операций по карте",
+            description = "Для всех авторизованных пользователей (только свои карты или все для администратора). "
+                    + "Возвращает страницу операций за период from - to, новые первыми. Без периода - последние "
+                    + "cards.transactions.default-period-days дней. Для следующей страницы передайте nextCursor в cursor."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Страница операций успешно получена"),
+            @ApiResponse(responseCode = "400", description = "Неверный курсор или период"),
+            @ApiResponse(responseCode = "403", description = "Нет доступа к этой карте"),
+            @ApiResponse(responseCode = "404", description = "Карта не найдена")
+    })
+    public CardTransactionPageResponse getCardTransactions(
+            @Parameter(description = "ID карты", required = true) @PathVariable String cardId,
+            @Parameter(description = "Период, курсор и размер страницы") CardTransactionPageRequest page,
+            Authentication authentication) {
+        return cardTransactionService.getTransactions(cardId, page, CallerContext.from(authentication));
     }
 
     @PostMapping("/transfer")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @Operation(
             summary = "Перевод между картами",
-            description = "Для всех авторизованных пользователей. Перевод средств между своими картами."
+            description = "Для всех авторизованных пользователей. Перевод средств между своими картами. "
+                    + "С заголовком Idempotency-Key повтор запроса возвращает исход первого выполнения "
+                    + "и не переводит деньги второй раз."
     )
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "Перевод успешно выполнен"),
             @ApiResponse(responseCode = "400", description = "Недостаточно средств или неверные данные"),
-            @ApiResponse(responseCode = "403", description = "Нет доступа к указанным картам")
+            @ApiResponse(responseCode = "403", description = "Нет доступа к указанным картам"),
+            @ApiResponse(responseCode = "409", description = "Перевод с этим Idempotency-Key еще выполняется"),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key уже использован для другого перевода"),
+            @ApiResponse(responseCode = "503", description = "Очередь переводов переполнена, повторите позже")
     })
-    public void transfer(
+    public CompletableFuture<Void> transfer(
             @RequestBody TransferRequest request,
+            @Parameter(description = "Ключ идемпотентности, уникальный для каждого перевода клиента")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             Authentication authentication) {
         String userId = getUserId(authentication);
+        CompletableFuture<Void> result = idempotencyKey != null
+                ? transferIdempotencyStore.execute(userId, idempotencyKey, request, () -> executeTransfer(request, userId))
+                : executeTransfer(request, userId);
+        if (transferEngine.getIfAvailable() != null) {
+            return result;
+        }
+        // Без движка перевод уже выполнен в этом потоке: null отдает 204 сразу, без асинхронной обработки запроса
+        try {
+            result.join();
+        } catch (CompletionException ex) {
+            throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+        }
+        return null;
+    }
+
+    private CompletableFuture<Void> executeTransfer(TransferRequest request, String userId) {
+        TransferEngine engine = transferEngine.getIfAvailable();
+        if (engine != null) {
+            return engine.submit(request, userId);
+        }
         cardService.transfer(request, userId);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @PostMapping("/transfer/batch")
+    @Operation(
+            summary = "Пакет переводов между картами",
+            description = "Для всех авторизованных пользователей. Выполняет список переводов между своими картами "
+                    + "в одной транзакции и возвращает результат по каждому. Режим ALL_OR_NOTHING (по умолчанию) "
+                    + "применяет пакет только целиком, BEST_EFFORT - все переводы, прошедшие проверки."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Пакет обработан, результаты по каждому переводу в ответе"),
+            @ApiResponse(responseCode = "400", description = "Пустой пакет, пустой элемент пакета или пакет больше cards.transfer.batch.max-size")
+    })
+    public TransferBatchResponse transferBatch(
+            @RequestBody TransferBatchRequest request,
+            Authentication authentication) {
+        return transferBatchService.transfer(request, getUserId(authentication));
     }
 
     @GetMapping("/my/for-transfer")
@@ -193,8 +375,7 @@ public class CardController {
     public void requestBlockCard(
             @Parameter(description = "ID карты", required = true) @PathVariable String cardId,
             Authentication authentication) {
-        String userId = getUserId(authentication);
-        cardService.blockCard(cardId, userId);
+        cardService.blockCard(cardId, CallerContext.from(authentication));
     }
 
     @GetMapping("/{userId}/cards")
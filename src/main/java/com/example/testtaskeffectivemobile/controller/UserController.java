@@ -54,7 +54,8 @@ public class UserController {
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "Пароль успешно изменен"),
             @ApiResponse(responseCode = "400", description = "Неверный текущий пароль или пароли не совпадают"),
-            @ApiResponse(responseCode = "401", description = "Пользователь не авторизован")
+            @ApiResponse(responseCode = "401", description = "Пользователь не авторизован"),
+            @ApiResponse(responseCode = "503", description = "Пул хеширования паролей перегружен, повторите позже")
     })
     public void changePassword(
             @RequestBody final ChangePasswordRequest request,
@@ -0,0 +1,18 @@
+package com.example.testtaskeffectivemobile.dto.request;
+
+import lombok.Getter;
+
+@Getter
+public enum CardExportFormat {
+
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    CardExportFormat(final String contentType, final String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+}
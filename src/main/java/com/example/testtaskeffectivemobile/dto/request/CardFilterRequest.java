@@ -10,5 +10,6 @@ import lombok.*;
 @Builder
 public class CardFilterRequest {
     private String cardNumber;
+    private CardNumberSearchMode cardNumberMode;
     private CardStatus status;
 }
\ No newline at end of file
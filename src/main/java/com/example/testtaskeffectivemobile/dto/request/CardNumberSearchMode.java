@@ -0,0 +1,38 @@
+package com.example.testtaskeffectivemobile.dto.request;
+
+import com.example.testtaskeffectivemobile.exception.BusinessException;
+import com.example.testtaskeffectivemobile.exception.ErrorCode;
+
+import java.util.regex.Pattern;
+
+// Способы поиска по номеру карты, каждый обслуживается своим индексом:
+// EXACT - полный номер, LAST4 - последние 4 цифры (card_number_last4), BIN - первые 6-8 цифр (префикс card_number)
+public enum CardNumberSearchMode {
+
+    EXACT(Pattern.compile("\\d{13,19}")),
+    LAST4(Pattern.compile("\\d{4}")),
+    BIN(Pattern.compile("\\d{6,8}"));
+
+    private final Pattern format;
+
+    CardNumberSearchMode(final Pattern format) {
+        this.format = format;
+    }
+
+    public static CardNumberSearchMode resolve(final String cardNumber, final CardNumberSearchMode requested) {
+        final CardNumberSearchMode mode = requested != null ? requested : infer(cardNumber);
+        if (mode == null || !mode.format.matcher(cardNumber).matches()) {
+            throw new BusinessException(ErrorCode.INVALID_CARD_NUMBER_FILTER, cardNumber);
+        }
+        return mode;
+    }
+
+    private static CardNumberSearchMode infer(final String cardNumber) {
+        for (final CardNumberSearchMode mode : values()) {
+            if (mode.format.matcher(cardNumber).matches()) {
+                return mode;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.testtaskeffectivemobile.dto.request;
+
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CardPageRequest {
+    private String cursor;
+    private Integer size;
+    private CardSortOrder sort;
+}
@@ -0,0 +1,19 @@
+package com.example.testtaskeffectivemobile.dto.request;
+
+import lombok.Getter;
+import org.springframework.data.domain.Sort;
+
+// Порядок сортировки по (created_date, id): оба направления обслуживаются индексами
+// idx_cards_user_created и idx_cards_created
+@Getter
+public enum CardSortOrder {
+
+    CREATED_DESC(Sort.Direction.DESC),
+    CREATED_ASC(Sort.Direction.ASC);
+
+    private final Sort.Direction direction;
+
+    CardSortOrder(final Sort.Direction direction) {
+        this.direction = direction;
+    }
+}
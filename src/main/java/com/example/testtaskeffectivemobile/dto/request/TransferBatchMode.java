@@ -0,0 +1,7 @@
+package com.example.testtaskeffectivemobile.dto.request;
+
+// ALL_OR_NOTHING - пакет применяется только целиком, BEST_EFFORT - применяются все переводы, прошедшие проверки
+public enum TransferBatchMode {
+    ALL_OR_NOTHING,
+    BEST_EFFORT
+}
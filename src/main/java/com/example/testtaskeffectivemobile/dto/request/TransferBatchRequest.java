@@ -0,0 +1,15 @@
+package com.example.testtaskeffectivemobile.dto.request;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TransferBatchRequest {
+    private List<TransferRequest> transfers;
+    private TransferBatchMode mode;
+}
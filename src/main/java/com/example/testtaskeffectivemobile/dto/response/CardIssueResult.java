@@ -0,0 +1,18 @@
+package com.example.testtaskeffectivemobile.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CardIssueResult {
+    private int index;
+    private CardIssueStatus status;
+    private CardDTO card;
+    private String errorCode;
+    private String message;
+}
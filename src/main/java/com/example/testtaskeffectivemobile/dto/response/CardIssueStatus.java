@@ -0,0 +1,6 @@
+package com.example.testtaskeffectivemobile.dto.response;
+
+public enum CardIssueStatus {
+    ISSUED,
+    REJECTED
+}
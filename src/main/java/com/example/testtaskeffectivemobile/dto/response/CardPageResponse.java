@@ -0,0 +1,16 @@
+package com.example.testtaskeffectivemobile.dto.response;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CardPageResponse {
+    private List<CardDTO> content;
+    private String nextCursor;
+    private boolean hasNext;
+}
@@ -0,0 +1,20 @@
+package com.example.testtaskeffectivemobile.dto.response;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CardTransactionDTO {
+    private long id;
+    private String cardId;
+    private String counterpartyCardId;
+    // Списание отрицательное, зачисление положительное
+    private BigDecimal amount;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,16 @@
+package com.example.testtaskeffectivemobile.dto.response;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CardTransactionPageResponse {
+    private List<CardTransactionDTO> content;
+    private String nextCursor;
+    private boolean hasNext;
+}
@@ -0,0 +1,18 @@
+package com.example.testtaskeffectivemobile.dto.response;
+
+import com.example.testtaskeffectivemobile.dto.request.TransferBatchMode;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TransferBatchResponse {
+    private TransferBatchMode mode;
+    private int applied;
+    private int rejected;
+    private List<TransferResult> results;
+}
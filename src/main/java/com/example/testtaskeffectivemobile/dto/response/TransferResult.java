@@ -0,0 +1,17 @@
+package com.example.testtaskeffectivemobile.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TransferResult {
+    private int index;
+    private TransferResultStatus status;
+    private String errorCode;
+    private String message;
+}
@@ -0,0 +1,8 @@
+package com.example.testtaskeffectivemobile.dto.response;
+
+public enum TransferResultStatus {
+    APPLIED,
+    REJECTED,
+    // Перевод прошел проверки, но пакет ALL_OR_NOTHING не применен из-за других переводов
+    ROLLED_BACK
+}
@@ -3,6 +3,7 @@ package com.example.testtaskeffectivemobile.entity;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.Formula;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -21,9 +22,12 @@ public class Card extends BaseEntity{
     @GeneratedValue(strategy = GenerationType.UUID)
     private String id;
 
-    @Column(name = "CARD_NUMBER",nullable = false)
+    @Column(name = "CARD_NUMBER",nullable = false, unique = true)
     private String cardNumber;
 
+    @Column(name = "CARD_NUMBER_LAST4",nullable = false, length = 4)
+    private String cardNumberLast4;
+
     @Column(name = "ACTIVATION_DATE",nullable = false)
     private LocalDate activationDate;
 
@@ -34,10 +38,32 @@ public class Card extends BaseEntity{
     @Column(name = "STATUS",nullable = false)
     private CardStatus status;
 
+    @Convert(converter = MoneyConverter.class)
     @Column(name = "BALANCE",nullable = false)
-    private BigDecimal balance;
+    private Money balance;
+
+    // 0 - обычная карта, больше 0 - горячая карта, часть баланса которой лежит в card_balance_slots
+    @Column(name = "BALANCE_SLOTS",nullable = false)
+    private int balanceSlots;
+
+    // Баланс с учетом слотов, только для чтения
+    @Formula("CASE WHEN balance_slots > 0 THEN balance + COALESCE("
+            + "(SELECT SUM(s.balance) FROM card_balance_slots s WHERE s.card_id = id), 0) ELSE balance END")
+    private BigDecimal totalBalance;
 
     @ManyToOne(fetch =  FetchType.LAZY)
     @JoinColumn(name = "user_id",nullable = false)
     private User user;
+
+    public BigDecimal getTotalBalance() {
+        return totalBalance != null ? totalBalance : balance.toBigDecimal();
+    }
+
+    @PrePersist
+    @PreUpdate
+    void fillCardNumberLast4() {
+        if (cardNumber != null && cardNumber.length() >= 4) {
+            cardNumberLast4 = cardNumber.substring(cardNumber.length() - 4);
+        }
+    }
 }
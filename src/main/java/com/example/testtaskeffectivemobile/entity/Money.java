@@ -0,0 +1,54 @@
+package com.example.testtaskeffectivemobile.entity;
+
+import java.math.BigDecimal;
+
+// Сумма в копейках. Арифметика на long без промежуточных BigDecimal, переполнение дает ArithmeticException.
+// BigDecimal остается только на границах: JSON, параметры SQL и колонки DECIMAL(19,2)
+public record Money(long minorUnits) implements Comparable<Money> {
+
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0);
+
+    // Точное преобразование: больше двух знаков после запятой или выход за long - ArithmeticException
+    public static Money of(BigDecimal value) {
+        return new Money(value.setScale(SCALE).unscaledValue().longValueExact());
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    public Money plus(Money other) {
+        return new Money(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return new Money(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public Money negate() {
+        return new Money(Math.negateExact(minorUnits));
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    public int signum() {
+        return Long.signum(minorUnits);
+    }
+
+    public boolean isLessThan(Money other) {
+        return minorUnits < other.minorUnits;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
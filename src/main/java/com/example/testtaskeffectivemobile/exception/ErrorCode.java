@@ -27,7 +27,24 @@ public enum ErrorCode {
     USER_ACCOUNT_LOCKED("USER_ACCOUNT_LOCKED", "User account is locked", HttpStatus.FORBIDDEN),
     USER_DATA_INCOMPLETE("USER_DATA_INCOMPLETE", "User data is incomplete: %s", HttpStatus.BAD_REQUEST),
     USER_DATA_INVALID("USER_DATA_INVALID", "User data is invalid: %s", HttpStatus.BAD_REQUEST),
-    INVALID_AMOUNT("INVALID_AMOUNT", "Invalid amount", HttpStatus.BAD_REQUEST);
+    INVALID_AMOUNT("INVALID_AMOUNT", "Invalid amount", HttpStatus.BAD_REQUEST),
+    REFRESH_TOKEN_INVALID("REFRESH_TOKEN_INVALID", "Refresh token is invalid or expired", HttpStatus.UNAUTHORIZED),
+    REFRESH_TOKEN_REUSED("REFRESH_TOKEN_REUSED", "Refresh token has already been used, all sessions are revoked", HttpStatus.UNAUTHORIZED),
+    PASSWORD_HASHING_OVERLOADED("PASSWORD_HASHING_OVERLOADED", "Too many authentication requests, try again later", HttpStatus.SERVICE_UNAVAILABLE),
+    INVALID_CURSOR("INVALID_CURSOR", "Invalid page cursor: %s", HttpStatus.BAD_REQUEST),
+    INVALID_CARD_NUMBER_FILTER("INVALID_CARD_NUMBER_FILTER", "Card number filter must be a full number, last 4 digits or a 6-8 digit BIN: %s", HttpStatus.BAD_REQUEST),
+    TRANSFER_ENGINE_OVERLOADED("TRANSFER_ENGINE_OVERLOADED", "Too many transfers in progress, try again later", HttpStatus.SERVICE_UNAVAILABLE),
+    INVALID_BALANCE_SLOTS("INVALID_BALANCE_SLOTS", "Balance slots must be between 0 and %s", HttpStatus.BAD_REQUEST),
+    INVALID_TRANSFER_BATCH("INVALID_TRANSFER_BATCH", "Transfer batch must contain from 1 to %s transfers", HttpStatus.BAD_REQUEST),
+    INVALID_TRANSFER_BATCH_ITEM("INVALID_TRANSFER_BATCH_ITEM", "Transfer at index %s is empty", HttpStatus.BAD_REQUEST),
+    INVALID_IDEMPOTENCY_KEY("INVALID_IDEMPOTENCY_KEY", "Idempotency-Key must be from 1 to %s characters", HttpStatus.BAD_REQUEST),
+    IDEMPOTENCY_KEY_IN_PROGRESS("IDEMPOTENCY_KEY_IN_PROGRESS", "Transfer with this Idempotency-Key is still in progress", HttpStatus.CONFLICT),
+    IDEMPOTENCY_KEY_REUSED("IDEMPOTENCY_KEY_REUSED", "Idempotency-Key was already used for a different transfer", HttpStatus.UNPROCESSABLE_ENTITY),
+    INVALID_TRANSACTION_PERIOD("INVALID_TRANSACTION_PERIOD", "Transaction period must be positive and at most %s days", HttpStatus.BAD_REQUEST),
+    INVALID_CARD_ISSUE_BATCH("INVALID_CARD_ISSUE_BATCH", "Card issue batch must contain from 1 to %s cards", HttpStatus.BAD_REQUEST),
+    INVALID_CARD_ISSUE_CSV("INVALID_CARD_ISSUE_CSV", "Invalid card issue CSV at line %s", HttpStatus.BAD_REQUEST),
+    INVALID_CARD_ISSUE_ITEM("INVALID_CARD_ISSUE_ITEM", "Card issue request at index %s is empty", HttpStatus.BAD_REQUEST),
+    CARD_ISSUE_CHUNK_REJECTED("CARD_ISSUE_CHUNK_REJECTED", "Card issue chunk was rejected by a database constraint", HttpStatus.CONFLICT);
 
     private final String code;
     private final String defaultMessage;
@@ -17,12 +17,12 @@ public class CardMapper {
                 .activationDate(card.getActivationDate())
                 .expirationDate(card.getExpirationDate())
                 .status(card.getStatus())
-                .balance(card.getBalance())
+                .balance(card.getTotalBalance())
                 .userId(card.getUser().getId())
                 .build();
     }
 
-    private String maskCardNumber(String cardNumber) {
+    public static String maskCardNumber(String cardNumber) {
         if (cardNumber == null || cardNumber.length() < 8) {
             return cardNumber;
         }
@@ -1,7 +0,0 @@
-package com.example.testtaskeffectivemobile.repository;
-
-import com.example.testtaskeffectivemobile.entity.AccessToken;
-import org.springframework.data.repository.CrudRepository;
-
-public interface AccessTokenRepository extends CrudRepository<AccessToken,String> {
-}
@@ -0,0 +1,25 @@
+package com.example.testtaskeffectivemobile.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+// Позиция последней карты страницы: непрозрачная для клиента строка base64url("created_date|id")
+public record CardCursor(LocalDateTime createdDate, String id) {
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((createdDate + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CardCursor decode(final String cursor) {
+        final String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        final int separator = value.indexOf(SEPARATOR);
+        if (separator <= 0 || separator == value.length() - 1) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        return new CardCursor(LocalDateTime.parse(value.substring(0, separator)), value.substring(separator + 1));
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.testtaskeffectivemobile.repository;
+
+import com.example.testtaskeffectivemobile.dto.response.CardDTO;
+
+import java.time.LocalDateTime;
+
+// Строка постраничного списка: готовый DTO и created_date для курсора следующей страницы
+public record CardListItem(CardDTO card, LocalDateTime createdDate) {
+}
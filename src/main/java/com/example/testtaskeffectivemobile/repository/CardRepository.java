@@ -1,22 +1,113 @@
 package com.example.testtaskeffectivemobile.repository;
 
+import com.example.testtaskeffectivemobile.dto.response.CardDTO;
 import com.example.testtaskeffectivemobile.entity.Card;
 import com.example.testtaskeffectivemobile.entity.CardStatus;
-import io.lettuce.core.dynamic.annotation.Param;
+import com.example.testtaskeffectivemobile.entity.Money;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 
 @Repository
-public interface CardRepository extends JpaRepository<Card, String>, JpaSpecificationExecutor<Card> {
+public interface CardRepository extends JpaRepository<Card, String>, JpaSpecificationExecutor<Card>, CardRepositoryCustom {
+
+    String CARD_NUMBER_MASK = "**** **** ****";
+
+    String CARD_DTO_SELECT = "SELECT new com.example.testtaskeffectivemobile.dto.response.CardDTO("
+            + "c.id, CONCAT('" + CARD_NUMBER_MASK + "', c.cardNumberLast4), c.activationDate, c.expirationDate, "
+            + "c.status, c.totalBalance, c.user.id) FROM Card c ";
 
     List<Card> findByUserIdAndStatus(String userId, CardStatus status);
     List<Card> findByUserId(String userId);
     @Query("SELECT c FROM Card c WHERE c.user.id = :userId")
     List<Card> findCardsByUserId(@Param("userId") String userId);
+
+    // Списание и зачисление одним UPDATE: проверки владельца, статуса и остатка выполняются в той же строке,
+    // 0 обновленных строк означает, что перевод невозможен
+    @Modifying
+    @Query("UPDATE Card c SET c.balance = c.balance - :amount, "
+            + "c.lastModifiedDate = LOCAL DATETIME, c.lastModifiedBy = :userId "
+            + "WHERE c.id = :cardId AND c.user.id = :userId "
+            + "AND c.status = com.example.testtaskeffectivemobile.entity.CardStatus.ACTIVE "
+            + "AND c.balance >= :amount")
+    int debit(@Param("cardId") String cardId, @Param("userId") String userId, @Param("amount") Money amount);
+
+    @Modifying
+    @Query("UPDATE Card c SET c.balance = c.balance + :amount, "
+            + "c.lastModifiedDate = LOCAL DATETIME, c.lastModifiedBy = :userId "
+            + "WHERE c.id = :cardId AND c.user.id = :userId "
+            + "AND c.status = com.example.testtaskeffectivemobile.entity.CardStatus.ACTIVE")
+    int credit(@Param("cardId") String cardId, @Param("userId") String userId, @Param("amount") Money amount);
+
+    // Зачисление в слот горячей карты: строка cards только читается и не блокируется.
+    // Порядок блокировок во всех путях: строки карт по id, слоты карты - только после ее строки
+    @Modifying
+    @Query(value = """
+            UPDATE card_balance_slots s SET balance = s.balance + :amount
+            FROM cards c
+            WHERE s.card_id = :cardId AND s.slot = :slot
+              AND c.id = s.card_id AND c.user_id = :userId AND c.status = 'ACTIVE'""", nativeQuery = true)
+    int creditBalanceSlot(@Param("cardId") String cardId, @Param("slot") int slot,
+                          @Param("userId") String userId, @Param("amount") BigDecimal amount);
+
+    // Переносит остатки всех слотов в cards.balance. Строка карты блокируется раньше слотов:
+    // выборка слотов зависит от заблокированной строки, поэтому PostgreSQL не может выполнить ее первой
+    @Modifying
+    @Transactional
+    @Query(value = """
+            WITH card AS (
+                SELECT id FROM cards WHERE id = :cardId FOR UPDATE
+            ), locked AS (
+                SELECT slot, balance FROM card_balance_slots
+                WHERE card_id = (SELECT id FROM card) ORDER BY slot FOR UPDATE
+            ), swept AS (
+                UPDATE card_balance_slots s SET balance = 0
+                FROM locked
+                WHERE s.card_id = :cardId AND s.slot = locked.slot AND locked.balance <> 0
+                RETURNING locked.balance AS amount
+            )
+            UPDATE cards SET balance = balance + (SELECT COALESCE(SUM(amount), 0) FROM swept)
+            WHERE id = :cardId""", nativeQuery = true)
+    int sweepBalanceSlots(@Param("cardId") String cardId);
+
+    @Modifying
+    @Query(value = "DELETE FROM card_balance_slots WHERE card_id = :cardId", nativeQuery = true)
+    void deleteBalanceSlots(@Param("cardId") String cardId);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO card_balance_slots (card_id, slot, balance)
+            SELECT :cardId, slot, 0 FROM generate_series(0, :slots - 1) AS slot""", nativeQuery = true)
+    void createBalanceSlots(@Param("cardId") String cardId, @Param("slots") int slots);
+
+    @Modifying
+    @Query("UPDATE Card c SET c.balanceSlots = :slots WHERE c.id = :cardId")
+    void updateBalanceSlots(@Param("cardId") String cardId, @Param("slots") int slots);
+
+    @Query("SELECT new com.example.testtaskeffectivemobile.repository.HotCard(c.id, c.balanceSlots) "
+            + "FROM Card c WHERE c.balanceSlots > 0")
+    List<HotCard> findHotCards();
+
+    @Query("SELECT c.user.id FROM Card c WHERE c.id = :cardId")
+    Optional<String> findOwnerIdById(@Param("cardId") String cardId);
+
+    @Query(CARD_DTO_SELECT + "WHERE c.id = :cardId")
+    Optional<CardDTO> findDtoById(@Param("cardId") String cardId);
+
+    @Query(CARD_DTO_SELECT + "WHERE c.user.id = :userId AND c.status = :status ORDER BY c.createdDate, c.id")
+    List<CardDTO> findDtosByUserIdAndStatus(@Param("userId") String userId, @Param("status") CardStatus status);
+
+    @Query(CARD_DTO_SELECT + "WHERE c.user.id = :userId AND c.status = :status AND c.expirationDate > :date "
+            + "ORDER BY c.createdDate, c.id")
+    List<CardDTO> findDtosByUserIdAndStatusExpiringAfter(
+            @Param("userId") String userId, @Param("status") CardStatus status, @Param("date") LocalDate date);
 }
@@ -0,0 +1,11 @@
+package com.example.testtaskeffectivemobile.repository;
+
+import com.example.testtaskeffectivemobile.entity.Card;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface CardRepositoryCustom {
+    List<CardListItem> findListItems(Specification<Card> spec, Sort.Direction direction, int limit);
+}
@@ -0,0 +1,64 @@
+package com.example.testtaskeffectivemobile.repository;
+
+import com.example.testtaskeffectivemobile.dto.response.CardDTO;
+import com.example.testtaskeffectivemobile.entity.Card;
+import com.example.testtaskeffectivemobile.entity.CardStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Списки карт выбираются проекцией только нужных колонок: сущности не попадают в persistence context,
+// номер маскируется в самом запросе
+public class CardRepositoryCustomImpl implements CardRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<CardListItem> findListItems(Specification<Card> spec, Sort.Direction direction, int limit) {
+        final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        final Root<Card> root = query.from(Card.class);
+        final Path<LocalDateTime> createdDate = root.get("createdDate");
+        final Path<String> id = root.get("id");
+        query.multiselect(
+                id,
+                cb.concat(CardRepository.CARD_NUMBER_MASK, root.<String>get("cardNumberLast4")),
+                root.get("activationDate"),
+                root.get("expirationDate"),
+                root.get("status"),
+                root.get("totalBalance"),
+                root.get("user").get("id"),
+                createdDate);
+        query.where(spec.toPredicate(root, query, cb));
+        query.orderBy(direction.isDescending()
+                ? List.of(cb.desc(createdDate), cb.desc(id))
+                : List.of(cb.asc(createdDate), cb.asc(id)));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList()
+                .stream()
+                .map(tuple -> new CardListItem(
+                        new CardDTO(
+                                tuple.get(0, String.class),
+                                tuple.get(1, String.class),
+                                tuple.get(2, LocalDate.class),
+                                tuple.get(3, LocalDate.class),
+                                tuple.get(4, CardStatus.class),
+                                tuple.get(5, BigDecimal.class),
+                                tuple.get(6, String.class)),
+                        tuple.get(7, LocalDateTime.class)))
+                .toList();
+    }
+}
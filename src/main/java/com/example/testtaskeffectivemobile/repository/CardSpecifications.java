@@ -0,0 +1,59 @@
+package com.example.testtaskeffectivemobile.repository;
+
+import com.example.testtaskeffectivemobile.dto.request.CardFilterRequest;
+import com.example.testtaskeffectivemobile.dto.request.CardNumberSearchMode;
+import com.example.testtaskeffectivemobile.entity.Card;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class CardSpecifications {
+
+    private CardSpecifications() {
+    }
+
+    public static Specification<Card> byFilter(final CardFilterRequest filter, final String userId) {
+        final String cardNumber = filter.getCardNumber();
+        final CardNumberSearchMode cardNumberMode = cardNumber != null && !cardNumber.isEmpty()
+                ? CardNumberSearchMode.resolve(cardNumber, filter.getCardNumberMode())
+                : null;
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (userId != null) {
+                predicates.add(cb.equal(root.get("user").get("id"), userId));
+            }
+            if (cardNumberMode != null) {
+                predicates.add(switch (cardNumberMode) {
+                    case EXACT -> cb.equal(root.get("cardNumber"), cardNumber);
+                    case LAST4 -> cb.equal(root.get("cardNumberLast4"), cardNumber);
+                    case BIN -> cb.like(root.get("cardNumber"), cardNumber + "%");
+                });
+            }
+            if (filter.getStatus() != null) {
+                predicates.add(cb.equal(root.get("status"), filter.getStatus()));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    // Условие keyset-пагинации: строки строго после курсора в порядке (created_date, id)
+    public static Specification<Card> after(final CardCursor cursor, final Sort.Direction direction) {
+        return (root, query, cb) -> {
+            final Path<LocalDateTime> createdDate = root.get("createdDate");
+            final Path<String> id = root.get("id");
+            if (direction.isDescending()) {
+                return cb.or(
+                        cb.lessThan(createdDate, cursor.createdDate()),
+                        cb.and(cb.equal(createdDate, cursor.createdDate()), cb.lessThan(id, cursor.id())));
+            }
+            return cb.or(
+                    cb.greaterThan(createdDate, cursor.createdDate()),
+                    cb.and(cb.equal(createdDate, cursor.createdDate()), cb.greaterThan(id, cursor.id())));
+        };
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.testtaskeffectivemobile.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+// Позиция последней операции страницы: base64url("created_at|id")
+public record CardTransactionCursor(LocalDateTime createdAt, long id) {
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((createdAt + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CardTransactionCursor decode(final String cursor) {
+        final String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        final int separator = value.indexOf(SEPARATOR);
+        if (separator <= 0 || separator == value.length() - 1) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        return new CardTransactionCursor(LocalDateTime.parse(value.substring(0, separator)),
+                Long.parseLong(value.substring(separator + 1)));
+    }
+}
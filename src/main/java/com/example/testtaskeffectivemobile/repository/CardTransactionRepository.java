@@ -0,0 +1,83 @@
+package com.example.testtaskeffectivemobile.repository;
+
+import com.example.testtaskeffectivemobile.dto.response.CardTransactionDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Журнал card_transactions через JdbcTemplate: id выдает последовательность в самом INSERT,
+// поэтому пачка переводов пишется одним batch без чтения ключей обратно
+@Repository
+@RequiredArgsConstructor
+public class CardTransactionRepository {
+
+    private static final String INSERT = """
+            INSERT INTO card_transactions (card_id, counterparty_card_id, amount, created_at, created_by)
+            VALUES (?, ?, ?, ?, ?)""";
+
+    // Граница по created_at обязательна: по ней PostgreSQL отсекает секции, не попавшие в период
+    private static final String SELECT_PAGE = """
+            SELECT id, card_id, counterparty_card_id, amount, created_at
+            FROM card_transactions
+            WHERE card_id = ? AND created_at >= ? AND created_at < ?""";
+
+    private static final String AFTER_CURSOR = """
+             AND created_at <= ? AND (created_at, id) < (?, ?)""";
+
+    private static final String ORDER_AND_LIMIT = """
+             ORDER BY created_at DESC, id DESC LIMIT ?""";
+
+    private static final RowMapper<CardTransactionDTO> ROW_MAPPER = (rs, rowNum) -> CardTransactionDTO.builder()
+            .id(rs.getLong("id"))
+            .cardId(rs.getString("card_id"))
+            .counterpartyCardId(rs.getString("counterparty_card_id"))
+            .amount(rs.getBigDecimal("amount"))
+            .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Пишет в текущей транзакции по две строки на перевод, все строки одним batch. created_at - по часам JVM,
+    // как и месяцы секций в CardTransactionPartitions, поэтому строка попадает в уже созданную секцию
+    public void insertAll(List<CardTransfer> transfers) {
+        if (transfers.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(transfers.size() * 2);
+        for (CardTransfer transfer : transfers) {
+            rows.add(new Object[]{transfer.fromCardId(), transfer.toCardId(), transfer.amount().negate().toBigDecimal(), now,
+                    transfer.userId()});
+            rows.add(new Object[]{transfer.toCardId(), transfer.fromCardId(), transfer.amount().toBigDecimal(), now,
+                    transfer.userId()});
+        }
+        jdbcTemplate.batchUpdate(INSERT, rows);
+    }
+
+    public List<CardTransactionDTO> findPage(
+            String cardId,
+            LocalDateTime from,
+            LocalDateTime to,
+            CardTransactionCursor after,
+            int limit
+    ) {
+        List<Object> args = new ArrayList<>(List.of(cardId, Timestamp.valueOf(from), Timestamp.valueOf(to)));
+        StringBuilder sql = new StringBuilder(SELECT_PAGE);
+        if (after != null) {
+            Timestamp cursorTime = Timestamp.valueOf(after.createdAt());
+            sql.append(AFTER_CURSOR);
+            args.add(cursorTime);
+            args.add(cursorTime);
+            args.add(after.id());
+        }
+        sql.append(ORDER_AND_LIMIT);
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), ROW_MAPPER, args.toArray());
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.testtaskeffectivemobile.repository;
+
+import com.example.testtaskeffectivemobile.entity.Money;
+
+// Выполненный перевод, из которого в журнал пишутся строки списания и зачисления
+public record CardTransfer(String fromCardId, String toCardId, Money amount, String userId) {
+}
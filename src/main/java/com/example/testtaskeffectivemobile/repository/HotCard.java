@@ -0,0 +1,4 @@
+package com.example.testtaskeffectivemobile.repository;
+
+public record HotCard(String id, int balanceSlots) {
+}
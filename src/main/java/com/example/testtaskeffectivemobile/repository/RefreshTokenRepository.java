@@ -1,7 +0,0 @@
-package com.example.testtaskeffectivemobile.repository;
-
-import com.example.testtaskeffectivemobile.entity.RefreshToken;
-import org.springframework.data.repository.CrudRepository;
-
-public interface RefreshTokenRepository extends CrudRepository<RefreshToken, String> {
-}
@@ -2,8 +2,13 @@ package com.example.testtaskeffectivemobile.repository;
 
 import com.example.testtaskeffectivemobile.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -11,4 +16,13 @@ import java.util.UUID;
 @Repository
 public interface UserRepository  extends JpaRepository<User, String> {
     Optional<User> findByEmailIgnoreCase(String email);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :userId")
+    int updatePassword(@Param("userId") String userId, @Param("password") String password);
+
+    // Только id: пользователи с EAGER ролями не загружаются целиком ради проверки существования
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    List<String> findExistingIds(@Param("ids") Collection<String> ids);
 }
@@ -0,0 +1,44 @@
+package com.example.testtaskeffectivemobile.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Arrays;
+
+// Подбор стоимости BCrypt под целевое время проверки пароля на текущем железе.
+// Каждая единица strength удваивает время, поэтому достаточно одного замера на минимальной стоимости
+@Slf4j
+public final class BcryptStrengthCalibrator {
+
+    private static final int SAMPLES = 3;
+
+    private BcryptStrengthCalibrator() {
+    }
+
+    public static int calibrate(final long targetMillis, final int minStrength, final int maxStrength) {
+        final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(minStrength);
+        final String hash = encoder.encode("calibration");
+        final long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            final long start = System.nanoTime();
+            encoder.matches("calibration", hash);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        final double measuredMillis = samples[SAMPLES / 2] / 1_000_000.0;
+        final int strength = strengthFor(measuredMillis, minStrength, targetMillis, maxStrength);
+        log.info("BCrypt strength {} selected for target {} ms ({} ms measured at strength {})",
+                strength, targetMillis, String.format("%.1f", measuredMillis), minStrength);
+        return strength;
+    }
+
+    static int strengthFor(final double measuredMillis, final int minStrength, final long targetMillis, final int maxStrength) {
+        int strength = minStrength;
+        double expectedMillis = measuredMillis;
+        while (strength < maxStrength && expectedMillis * 2 <= targetMillis) {
+            expectedMillis *= 2;
+            strength++;
+        }
+        return strength;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.testtaskeffectivemobile.security;
+
+import com.example.testtaskeffectivemobile.entity.User;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Уже аутентифицированный вызывающий: id и роли берутся из Authentication, без повторной загрузки пользователя
+public record CallerContext(String userId, Set<String> authorities) {
+
+    public static final String ADMIN_AUTHORITY = "ROLE_ADMIN";
+
+    public CallerContext {
+        authorities = Set.copyOf(authorities);
+    }
+
+    public static CallerContext from(Authentication authentication) {
+        return new CallerContext(
+                ((User) authentication.getPrincipal()).getId(),
+                authentication.getAuthorities().stream()
+                        .map(GrantedAuthority::getAuthority)
+                        .collect(Collectors.toSet()));
+    }
+
+    public boolean isAdmin() {
+        return authorities.contains(ADMIN_AUTHORITY);
+    }
+
+    public boolean canAccess(String ownerId) {
+        return userId.equals(ownerId) || isAdmin();
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.testtaskeffectivemobile.security;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import com.example.testtaskeffectivemobile.util.BoundedCache;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Кэш уже проверенных claims: подпись токена проверяется один раз, дальше claims берутся из памяти до exp
+@Component
+public class ClaimsCache implements MeterBinder {
+
+    private final BoundedCache<String, Claims> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ClaimsCache(@Value("${security.jwt.claims-cache.max-size:10000}") final int maxSize) {
+        this.entries = new BoundedCache<>(maxSize);
+    }
+
+    public Claims getOrVerify(final String token, final Function<String, Claims> verifier) {
+        final String key = digest(token);
+        final long now = System.currentTimeMillis();
+        final Claims cached = entries.get(key, now);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        final Claims claims = verifier.apply(token);
+        final Date expiration = claims.getExpiration();
+        if (expiration != null && expiration.getTime() > now) {
+            entries.put(key, claims, expiration.getTime());
+        }
+        return claims;
+    }
+
+    public void invalidate(final String token) {
+        entries.remove(digest(token));
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void bindTo(@NonNull final MeterRegistry registry) {
+        FunctionCounter.builder("security.jwt.claims_cache.requests", this, ClaimsCache::hitCount)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("security.jwt.claims_cache.requests", this, ClaimsCache::missCount)
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("security.jwt.claims_cache.size", this, ClaimsCache::size)
+                .register(registry);
+    }
+
+    private static String digest(final String token) {
+        try {
+            final MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+}
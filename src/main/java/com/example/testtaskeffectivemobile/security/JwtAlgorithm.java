@@ -0,0 +1,83 @@
+package com.example.testtaskeffectivemobile.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import lombok.Getter;
+
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.interfaces.ECKey;
+import java.security.interfaces.EdECKey;
+import java.security.interfaces.RSAKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+
+@Getter
+public enum JwtAlgorithm {
+
+    RS256(Jwts.SIG.RS256),
+    ES256(Jwts.SIG.ES256),
+    EdDSA(Jwts.SIG.EdDSA);
+
+    private final SignatureAlgorithm signatureAlgorithm;
+
+    JwtAlgorithm(final SignatureAlgorithm signatureAlgorithm) {
+        this.signatureAlgorithm = signatureAlgorithm;
+    }
+
+    public KeyPair generateKeyPair() throws GeneralSecurityException {
+        final KeyPairGenerator generator;
+        switch (this) {
+            case RS256 -> {
+                generator = KeyPairGenerator.getInstance("RSA");
+                generator.initialize(2048);
+            }
+            case ES256 -> {
+                generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(new ECGenParameterSpec("secp256r1"));
+            }
+            default -> generator = KeyPairGenerator.getInstance("Ed25519");
+        }
+        return generator.generateKeyPair();
+    }
+
+    public static JwtAlgorithm of(final PublicKey key) {
+        if (key instanceof RSAKey) {
+            return RS256;
+        }
+        if (key instanceof ECKey ecKey && isP256(ecKey.getParams())) {
+            return ES256;
+        }
+        if (key instanceof EdECKey edKey && "Ed25519".equals(edKey.getParams().getName())) {
+            return EdDSA;
+        }
+        throw new IllegalArgumentException("Unsupported JWT key type: " + key.getAlgorithm());
+    }
+
+    // ES256 определен только для P-256: другие 256-битные кривые (например, secp256k1) отклоняются
+    private static boolean isP256(final ECParameterSpec params) {
+        final ECParameterSpec p256 = P256.SPEC;
+        return params.getCurve().equals(p256.getCurve())
+                && params.getGenerator().equals(p256.getGenerator())
+                && params.getOrder().equals(p256.getOrder())
+                && params.getCofactor() == p256.getCofactor();
+    }
+
+    private static final class P256 {
+
+        private static final ECParameterSpec SPEC = load();
+
+        private static ECParameterSpec load() {
+            try {
+                final AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+                parameters.init(new ECGenParameterSpec("secp256r1"));
+                return parameters.getParameterSpec(ECParameterSpec.class);
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException("P-256 curve is not available", ex);
+            }
+        }
+    }
+}
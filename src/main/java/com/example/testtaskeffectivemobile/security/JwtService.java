@@ -1,175 +1,164 @@
 package com.example.testtaskeffectivemobile.security;
 
-import com.example.testtaskeffectivemobile.entity.AccessToken;
-import com.example.testtaskeffectivemobile.entity.RefreshToken;
 import com.example.testtaskeffectivemobile.entity.Role;
 import com.example.testtaskeffectivemobile.entity.User;
 import com.example.testtaskeffectivemobile.exception.BusinessException;
 import com.example.testtaskeffectivemobile.exception.ErrorCode;
-import com.example.testtaskeffectivemobile.repository.AccessTokenRepository;
-import com.example.testtaskeffectivemobile.repository.RefreshTokenRepository;
 import com.example.testtaskeffectivemobile.repository.UserRepository;
-import com.example.testtaskeffectivemobile.util.KeyUtils;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import org.springframework.beans.factory.annotation.Value;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.security.PrivateKey;
-import java.security.PublicKey;
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.Map;
-import java.util.stream.Collectors;
-
-import com.example.testtaskeffectivemobile.entity.AccessToken;
-import com.example.testtaskeffectivemobile.entity.RefreshToken;
-import com.example.testtaskeffectivemobile.entity.Role;
-import com.example.testtaskeffectivemobile.entity.User;
-import com.example.testtaskeffectivemobile.exception.BusinessException;
-import com.example.testtaskeffectivemobile.exception.ErrorCode;
-import com.example.testtaskeffectivemobile.repository.AccessTokenRepository;
-import com.example.testtaskeffectivemobile.repository.RefreshTokenRepository;
-import com.example.testtaskeffectivemobile.repository.UserRepository;
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.JwtException;
-import io.jsonwebtoken.Jwts;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.stereotype.Service;
-
-import java.security.KeyPair;
-import java.security.KeyPairGenerator;
-import java.security.PrivateKey;
-import java.security.PublicKey;
-import java.security.interfaces.RSAPrivateKey;
-import java.security.interfaces.RSAPublicKey;
-import java.util.ArrayList;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Service
+@Slf4j
 public class JwtService {
 
     private static final String TOKEN_TYPE = "token_type";
     private static final String ROLES = "role_list";
-
-    private static final Logger log = LoggerFactory.getLogger(JwtService.class);
-
-    private final PrivateKey privateKey;
-    private final PublicKey publicKey;
-    private final AccessTokenRepository accessTokenRepository;
-    private final RefreshTokenRepository refreshTokenRepository;
+    private static final String USER_ID = "user_id";
+    private static final String TOKEN_EPOCH = "token_epoch";
+    private static final String TOKEN_FAMILY = "token_family";
+    private static final String ROLES_DELIMITER = " | ";
+
+    private final SigningKeyRing keyRing;
+    private final TokenStore tokenStore;
+    private final TokenEpochService tokenEpochService;
     private final UserRepository userRepository;
+    private final ClaimsCache claimsCache;
+    private final JwtParser jwtParser;
 
     private final long accessTokenExpiration = 3600000L;
     private final long refreshTokenExpiration = 604800000L;
 
     public JwtService(
-            AccessTokenRepository accessTokenRepository,
-            RefreshTokenRepository refreshTokenRepository,
-            UserRepository userRepository
+            TokenStore tokenStore,
+            TokenEpochService tokenEpochService,
+            UserRepository userRepository,
+            ClaimsCache claimsCache,
+            SigningKeyRing keyRing
     ) {
-        this.accessTokenRepository = accessTokenRepository;
-        this.refreshTokenRepository = refreshTokenRepository;
+        this.tokenStore = tokenStore;
+        this.tokenEpochService = tokenEpochService;
         this.userRepository = userRepository;
+        this.claimsCache = claimsCache;
+        this.keyRing = keyRing;
+        this.jwtParser = Jwts.parser()
+                .keyLocator(keyRing)
+                .build();
+    }
 
-        try {
-            KeyPair keyPair = generateRsaKeyPair();
-            this.privateKey = (RSAPrivateKey) keyPair.getPrivate();
-            this.publicKey = (RSAPublicKey) keyPair.getPublic();
-            log.info("JWT keys generated successfully (hardcoded mode)");
-        } catch (Exception e) {
-            log.error("Failed to generate JWT keys", e);
-            throw new RuntimeException("JWT initialization failed", e);
-        }
+    public TokenPair issueTokens(final User user) {
+        final String userName = user.getUsername();
+        final long epoch = tokenEpochService.currentEpoch(userName);
+        final String accessTokenId = UUID.randomUUID().toString();
+        final String refreshTokenId = UUID.randomUUID().toString();
+        final String familyId = UUID.randomUUID().toString();
+        final String accessToken = buildToken(accessTokenId, userName, accessClaims(user, epoch), this.accessTokenExpiration);
+        final String refreshToken = buildToken(refreshTokenId, userName, refreshClaims(epoch, familyId), this.refreshTokenExpiration);
+        tokenStore.registerTokens(accessTokenId, refreshTokenId, familyId, userName,
+                Duration.ofMillis(this.accessTokenExpiration), Duration.ofMillis(this.refreshTokenExpiration));
+        return new TokenPair(accessToken, refreshToken);
     }
 
-    // Метод для генерации RSA ключей (2048-bit)
-    private KeyPair generateRsaKeyPair() throws Exception {
-        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
-        generator.initialize(2048);
-        return generator.generateKeyPair();
+    // Refresh token всех семейств несут старое поколение и отклоняются до обращения к семейству,
+    // записи семейств истекают вместе с токенами
+    public void dropAllTokens(final String userName) {
+        tokenEpochService.bump(userName);
     }
 
-    // Остальные методы без изменений
-    public String generateAccessToken(final String userName) {
-        final User savedUser = userRepository.findByEmailIgnoreCase(userName)
-                .orElseThrow(() -> new BusinessException(ErrorCode.USER_NOT_FOUND, userName));
-        final Map<String, Object> claims = Map.of(
+    private Map<String, Object> accessClaims(final User user, final long epoch) {
+        return Map.of(
                 TOKEN_TYPE, "ACCESS_TOKEN",
-                ROLES, String.join(" | ", savedUser.getRoles().stream()
+                USER_ID, user.getId(),
+                TOKEN_EPOCH, epoch,
+                ROLES, String.join(ROLES_DELIMITER, user.getRoles().stream()
                         .map(Role::getName)
                         .collect(Collectors.toList())));
-        final String accessToken = buildToken(userName, claims, this.accessTokenExpiration);
-        AccessToken token = accessTokenRepository.findById(userName)
-                .orElse(AccessToken.builder()
-                        .id(userName)
-                        .accessToken(new ArrayList<>())
-                        .build());
-        token.getAccessToken().add(accessToken);
-        accessTokenRepository.save(token);
-        return accessToken;
     }
 
-    public String generateRefreshToken(final String userName) {
-        final Map<String, Object> claims = Map.of(TOKEN_TYPE, "REFRESH_TOKEN");
-        final String refreshToken = buildToken(userName, claims, this.refreshTokenExpiration);
-        RefreshToken token = refreshTokenRepository.findById(userName)
-                .orElse(RefreshToken.builder()
-                        .id(userName)
-                        .build());
-        token.setRefreshToken(refreshToken);
-        refreshTokenRepository.save(token);
-        return refreshToken;
+    private Map<String, Object> refreshClaims(final long epoch, final String familyId) {
+        return Map.of(
+                TOKEN_TYPE, "REFRESH_TOKEN",
+                TOKEN_EPOCH, epoch,
+                TOKEN_FAMILY, familyId);
     }
 
-    public void dropAllTokens(final String userName) {
-        refreshTokenRepository.deleteById(userName);
-        accessTokenRepository.deleteById(userName);
-    }
-
-    private String buildToken(String userName, Map<String, Object> claims, long expiration) {
+    String buildToken(String tokenId, String userName, Map<String, Object> claims, long expiration) {
+        final SigningKey signingKey = keyRing.signingKey();
         return Jwts.builder()
+                .header().keyId(signingKey.kid()).and()
+                .id(tokenId)
                 .claims(claims)
                 .subject(userName)
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(this.privateKey)
+                .signWith(signingKey.privateKey(), signingKey.algorithm().getSignatureAlgorithm())
                 .compact();
     }
 
     public boolean validateToken(final String token, final String expectedUserName) {
-        final String userName = extractUserName(token);
-        return userName.equals(expectedUserName) && !isTokenExpired(token) && !isAccessTokenWithdrown(token, userName);
+        final Claims claims = extractClaims(token);
+        final String userName = claims.getSubject();
+        return userName.equals(expectedUserName) && !isTokenExpired(claims) && !isAccessTokenWithdrown(claims);
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractClaims(token).getExpiration().before(new Date());
+    private boolean isTokenExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
     }
 
-    private boolean isRefreshTokenWithdrown(String refreshToken, String userName) {
-        RefreshToken token = this.refreshTokenRepository.findById(userName).orElse(null);
-        return token == null || !token.getRefreshToken().equals(refreshToken);
+    private boolean isAccessTokenWithdrown(Claims claims) {
+        return isEpochOutdated(claims) || !this.tokenStore.isAccessTokenActive(claims.getId());
     }
 
-    private boolean isAccessTokenWithdrown(String accessToken, String userName) {
-        AccessToken token = this.accessTokenRepository.findById(userName).orElse(null);
-        return token == null || !token.getAccessToken().contains(accessToken);
+    private boolean isEpochOutdated(Claims claims) {
+        final Number epoch = claims.get(TOKEN_EPOCH, Number.class);
+        return epoch == null || epoch.longValue() != tokenEpochService.currentEpoch(claims.getSubject());
     }
 
     public String extractUserName(String token) {
         return extractClaims(token).getSubject();
     }
 
-    private Claims extractClaims(String token) {
+    public Optional<User> extractPrincipal(String token) {
+        final Claims claims = extractClaims(token);
+        final String userId = claims.get(USER_ID, String.class);
+        if (userId == null) {
+            return Optional.empty();
+        }
+        final String roleList = claims.get(ROLES, String.class);
+        final List<Role> roles = roleList == null || roleList.isBlank()
+                ? List.of()
+                : Arrays.stream(roleList.split(Pattern.quote(ROLES_DELIMITER)))
+                        .<Role>map(name -> Role.builder().name(name).build())
+                        .toList();
+        return Optional.of(User.builder()
+                .id(userId)
+                .email(claims.getSubject())
+                .enabled(true)
+                .roles(roles)
+                .build());
+    }
+
+    Claims extractClaims(String token) {
+        return claimsCache.getOrVerify(token, this::verifyClaims);
+    }
+
+    private Claims verifyClaims(String token) {
         try {
-            return Jwts.parser()
-                    .verifyWith(publicKey)
-                    .build()
+            return jwtParser
                     .parseSignedClaims(token)
                     .getPayload();
         } catch (final JwtException ex) {
@@ -177,15 +166,42 @@ public class JwtService {
         }
     }
 
-    public String refreshToken(final String refreshToken) {
-        final Claims claims = extractClaims(refreshToken);
+    public TokenPair refreshToken(final String refreshToken) {
+        final Claims claims;
+        try {
+            claims = extractClaims(refreshToken);
+        } catch (final RuntimeException ex) {
+            throw new BusinessException(ErrorCode.REFRESH_TOKEN_INVALID);
+        }
         final String userName = claims.getSubject();
-        if (!"REFRESH_TOKEN".equals(claims.get(TOKEN_TYPE))) {
-            throw new RuntimeException("Invalid refresh token");
+        final String familyId = claims.get(TOKEN_FAMILY, String.class);
+        if (!"REFRESH_TOKEN".equals(claims.get(TOKEN_TYPE)) || familyId == null
+                || isTokenExpired(claims) || isEpochOutdated(claims)) {
+            throw new BusinessException(ErrorCode.REFRESH_TOKEN_INVALID);
         }
-        if (isTokenExpired(refreshToken) || isRefreshTokenWithdrown(refreshToken, userName)) {
-            throw new RuntimeException("Refresh token expired");
+        final User savedUser = userRepository.findByEmailIgnoreCase(userName)
+                .orElseThrow(() -> new BusinessException(ErrorCode.REFRESH_TOKEN_INVALID));
+        final long epoch = claims.get(TOKEN_EPOCH, Number.class).longValue();
+        final String accessTokenId = UUID.randomUUID().toString();
+        final String refreshTokenId = UUID.randomUUID().toString();
+        final String accessToken = buildToken(accessTokenId, userName, accessClaims(savedUser, epoch), this.accessTokenExpiration);
+        final String newRefreshToken = buildToken(refreshTokenId, userName, refreshClaims(epoch, familyId), this.refreshTokenExpiration);
+
+        final TokenStore.RotationResult result = tokenStore.rotateRefreshToken(claims.getId(), refreshTokenId,
+                accessTokenId, familyId, userName,
+                Duration.ofMillis(this.accessTokenExpiration), Duration.ofMillis(this.refreshTokenExpiration));
+        switch (result) {
+            case ROTATED -> {
+                claimsCache.invalidate(refreshToken);
+                return new TokenPair(accessToken, newRefreshToken);
+            }
+            case REUSED -> {
+                // Старый refresh token своего семейства предъявлен повторно - считаем его украденным и отзываем все сессии
+                log.warn("Refresh token reuse detected for {} in family {}, revoking all sessions", userName, familyId);
+                tokenEpochService.bump(userName);
+                throw new BusinessException(ErrorCode.REFRESH_TOKEN_REUSED);
+            }
+            default -> throw new BusinessException(ErrorCode.REFRESH_TOKEN_INVALID);
         }
-        return generateAccessToken(userName);
     }
-}
\ No newline at end of file
+}
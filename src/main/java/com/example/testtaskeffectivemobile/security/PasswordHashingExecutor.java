@@ -0,0 +1,119 @@
+package com.example.testtaskeffectivemobile.security;
+
+import com.example.testtaskeffectivemobile.exception.BusinessException;
+import com.example.testtaskeffectivemobile.exception.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Отдельный ограниченный пул для хеширования паролей: всплеск логинов не занимает CPU всех потоков Tomcat,
+// а запросы сверх очереди сразу получают 503
+@Component
+@Slf4j
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Timer waitTimer;
+    private final Counter rejected;
+
+    public PasswordHashingExecutor(
+            @Value("${security.password-hashing.threads:0}") int threads,
+            @Value("${security.password-hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${security.password-hashing.timeout:5000}") long timeoutMillis,
+            MeterRegistry meterRegistry
+    ) {
+        final int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        this.timeoutMillis = timeoutMillis;
+        this.encodeTimer = hashTimer(Operation.ENCODE, meterRegistry);
+        this.matchesTimer = hashTimer(Operation.MATCHES, meterRegistry);
+        this.waitTimer = Timer.builder("security.password_hashing.wait")
+                .description("Время ожидания в очереди на хеширование")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("security.password_hashing.rejected")
+                .register(meterRegistry);
+        Gauge.builder("security.password_hashing.queue.size", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("security.password_hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+        log.info("Password hashing pool: {} threads, queue capacity {}", poolSize, queueCapacity);
+    }
+
+    public enum Operation {
+        ENCODE,
+        MATCHES
+    }
+
+    public <T> T execute(final Operation operation, final Supplier<T> task) {
+        final Timer hashTimer = operation == Operation.ENCODE ? encodeTimer : matchesTimer;
+        final long submittedAt = System.nanoTime();
+        final Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return hashTimer.record(task);
+            });
+        } catch (final RejectedExecutionException ex) {
+            rejected.increment();
+            throw new BusinessException(ErrorCode.PASSWORD_HASHING_OVERLOADED);
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (final TimeoutException ex) {
+            future.cancel(true);
+            rejected.increment();
+            throw new BusinessException(ErrorCode.PASSWORD_HASHING_OVERLOADED);
+        } catch (final InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.PASSWORD_HASHING_OVERLOADED);
+        } catch (final ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static Timer hashTimer(final Operation operation, final MeterRegistry meterRegistry) {
+        return Timer.builder("security.password_hashing.duration")
+                .description("Время вычисления хеша пароля")
+                .tag("operation", operation.name().toLowerCase())
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static ThreadFactory threadFactory() {
+        final AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
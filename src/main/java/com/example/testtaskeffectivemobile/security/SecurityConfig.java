@@ -1,5 +1,6 @@
 package com.example.testtaskeffectivemobile.security;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -39,8 +40,12 @@ public class SecurityConfig {
     public SecurityFilterChain filterChain(final HttpSecurity http) throws Exception {
         return http
                 .csrf(AbstractHttpConfigurer::disable)
+                // Асинхронный ответ перевода и страница ошибки - повторные диспетчеризации уже авторизованного
+                // запроса: JwtFilter на них не выполняется, а сессии, из которой взять контекст, нет
                 .authorizeHttpRequests(auth ->
-                        auth.requestMatchers(PUBLIC_URLS)
+                        auth.dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR)
+                                .permitAll()
+                                .requestMatchers(PUBLIC_URLS)
                                 .permitAll()
                                 .requestMatchers("api/v1/auth/premium")
                                 .hasRole("ADMIN")
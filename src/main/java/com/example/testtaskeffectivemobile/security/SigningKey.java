@@ -0,0 +1,11 @@
+package com.example.testtaskeffectivemobile.security;
+
+import java.security.PrivateKey;
+import java.security.PublicKey;
+
+public record SigningKey(String kid, JwtAlgorithm algorithm, PrivateKey privateKey, PublicKey publicKey) {
+
+    public boolean canSign() {
+        return privateKey != null;
+    }
+}
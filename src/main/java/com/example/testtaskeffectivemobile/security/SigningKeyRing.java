@@ -0,0 +1,157 @@
+package com.example.testtaskeffectivemobile.security;
+
+import com.example.testtaskeffectivemobile.util.KeyUtils;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.LocatorAdapter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+// Ключи JWT из каталога security.jwt.keys.location: <kid>.public.pem для проверки, <kid>.private.pem для подписи.
+// Подписывает security.jwt.keys.active-kid, а без него - наибольший kid с приватной частью.
+// Каталог перечитывается по расписанию, ротация описана в README
+@Component
+@Slf4j
+public class SigningKeyRing extends LocatorAdapter<Key> {
+
+    private static final String PRIVATE_SUFFIX = ".private.pem";
+    private static final String PUBLIC_SUFFIX = ".public.pem";
+
+    private final String location;
+    private final String activeKid;
+    private final JwtAlgorithm ephemeralAlgorithm;
+    private final ClaimsCache claimsCache;
+
+    private volatile KeySet keySet;
+
+    public SigningKeyRing(
+            @Value("${security.jwt.keys.location:}") String location,
+            @Value("${security.jwt.keys.active-kid:}") String activeKid,
+            @Value("${security.jwt.keys.algorithm:RS256}") JwtAlgorithm ephemeralAlgorithm,
+            ClaimsCache claimsCache
+    ) {
+        this.location = location;
+        this.activeKid = activeKid;
+        this.ephemeralAlgorithm = ephemeralAlgorithm;
+        this.claimsCache = claimsCache;
+        this.keySet = location.isBlank() ? ephemeralKeySet() : loadKeySet();
+    }
+
+    public SigningKey signingKey() {
+        return keySet.active();
+    }
+
+    @Override
+    protected Key locate(@NonNull final JwsHeader header) {
+        final KeySet current = keySet;
+        final String kid = header.getKeyId();
+        if (kid == null) {
+            return current.active().publicKey();
+        }
+        final SigningKey key = current.keys().get(kid);
+        if (key == null) {
+            throw new JwtException("Unknown signing key id: " + kid);
+        }
+        return key.publicKey();
+    }
+
+    @Scheduled(
+            initialDelayString = "${security.jwt.keys.reload-interval:300000}",
+            fixedDelayString = "${security.jwt.keys.reload-interval:300000}")
+    public void reload() {
+        if (location.isBlank()) {
+            return;
+        }
+        try {
+            final KeySet previous = keySet;
+            final KeySet reloaded = loadKeySet();
+            keySet = reloaded;
+            if (!reloaded.keys().keySet().containsAll(previous.keys().keySet())) {
+                claimsCache.clear();
+            }
+            if (!reloaded.active().kid().equals(previous.active().kid())) {
+                log.info("JWT signing key rotated: {} -> {}", previous.active().kid(), reloaded.active().kid());
+            }
+        } catch (final RuntimeException ex) {
+            log.error("Failed to reload JWT keys from {}, keeping the current key set", location, ex);
+        }
+    }
+
+    private KeySet loadKeySet() {
+        final Map<String, PublicKey> publicKeys = new HashMap<>();
+        final Map<String, PrivateKey> privateKeys = new HashMap<>();
+        try (Stream<Path> files = Files.list(Path.of(location))) {
+            for (final Path file : files.toList()) {
+                final String fileName = file.getFileName().toString();
+                if (fileName.endsWith(PUBLIC_SUFFIX)) {
+                    publicKeys.put(kidOf(fileName, PUBLIC_SUFFIX), KeyUtils.loadPublicKey(file.toString()));
+                } else if (fileName.endsWith(PRIVATE_SUFFIX)) {
+                    privateKeys.put(kidOf(fileName, PRIVATE_SUFFIX), KeyUtils.loadPrivateKey(file.toString()));
+                }
+            }
+        } catch (final IOException ex) {
+            throw new IllegalStateException("Cannot read JWT keys from " + location, ex);
+        } catch (final Exception ex) {
+            throw new IllegalStateException("Invalid JWT key in " + location, ex);
+        }
+
+        final Map<String, SigningKey> keys = new HashMap<>();
+        publicKeys.forEach((kid, publicKey) -> keys.put(kid,
+                new SigningKey(kid, JwtAlgorithm.of(publicKey), privateKeys.get(kid), publicKey)));
+        privateKeys.keySet().stream()
+                .filter(kid -> !publicKeys.containsKey(kid))
+                .forEach(kid -> log.warn("JWT private key {} has no public key and is ignored", kid));
+
+        final SigningKey active = resolveActive(keys)
+                .orElseThrow(() -> new IllegalStateException("No JWT signing key found in " + location));
+        log.info("Loaded {} JWT keys from {}, signing with {} ({})",
+                keys.size(), location, active.kid(), active.algorithm());
+        return new KeySet(Map.copyOf(keys), active);
+    }
+
+    private Optional<SigningKey> resolveActive(final Map<String, SigningKey> keys) {
+        if (!activeKid.isBlank()) {
+            return Optional.ofNullable(keys.get(activeKid)).filter(SigningKey::canSign);
+        }
+        return keys.values().stream()
+                .filter(SigningKey::canSign)
+                .max(Comparator.comparing(SigningKey::kid));
+    }
+
+    private KeySet ephemeralKeySet() {
+        try {
+            final KeyPair keyPair = ephemeralAlgorithm.generateKeyPair();
+            final SigningKey key = new SigningKey(
+                    "ephemeral-" + UUID.randomUUID(), ephemeralAlgorithm, keyPair.getPrivate(), keyPair.getPublic());
+            log.warn("security.jwt.keys.location is not set, generated ephemeral JWT key {}. "
+                    + "Tokens will not survive a restart or be accepted by other nodes", key.kid());
+            return new KeySet(Map.of(key.kid(), key), key);
+        } catch (final Exception ex) {
+            throw new IllegalStateException("JWT initialization failed", ex);
+        }
+    }
+
+    private static String kidOf(final String fileName, final String suffix) {
+        return fileName.substring(0, fileName.length() - suffix.length());
+    }
+
+    private record KeySet(Map<String, SigningKey> keys, SigningKey active) {
+    }
+}
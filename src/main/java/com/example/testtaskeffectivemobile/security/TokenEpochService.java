@@ -0,0 +1,74 @@
+package com.example.testtaskeffectivemobile.security;
+
+import com.example.testtaskeffectivemobile.util.BoundedCache;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Поколение токенов пользователя: любой токен со старым значением считается отозванным
+@Component
+@Slf4j
+public class TokenEpochService implements MessageListener {
+
+    public static final String CHANNEL = "token_epoch";
+    private static final String EPOCH_KEY = "token_epoch:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final BoundedCache<String, Long> localEpochs;
+    private final AtomicLong invalidations = new AtomicLong();
+    private final long localTtlMillis;
+
+    public TokenEpochService(
+            StringRedisTemplate redisTemplate,
+            @Value("${security.jwt.epoch-cache.ttl:30000}") long localTtlMillis,
+            @Value("${security.jwt.epoch-cache.max-size:10000}") int maxLocalEntries
+    ) {
+        this.redisTemplate = redisTemplate;
+        this.localTtlMillis = localTtlMillis;
+        this.localEpochs = new BoundedCache<>(maxLocalEntries);
+    }
+
+    // Значение, прочитанное из Redis до инвалидации, не должно остаться в кэше после нее: если за время чтения
+    // прошла инвалидация, своя запись удаляется. Инвалидация сначала увеличивает счетчик, потом удаляет запись,
+    // поэтому устаревшую запись убирает либо она, либо сам читатель
+    public long currentEpoch(final String userName) {
+        final long now = System.currentTimeMillis();
+        final Long cached = localEpochs.get(userName, now);
+        if (cached != null) {
+            return cached;
+        }
+        final long version = invalidations.get();
+        final String stored = redisTemplate.opsForValue().get(EPOCH_KEY + userName);
+        final long epoch = stored == null ? 0L : Long.parseLong(stored);
+        localEpochs.put(userName, epoch, now + localTtlMillis);
+        if (invalidations.get() != version) {
+            localEpochs.remove(userName);
+        }
+        return epoch;
+    }
+
+    public long bump(final String userName) {
+        final Long epoch = redisTemplate.opsForValue().increment(EPOCH_KEY + userName);
+        invalidate(userName);
+        redisTemplate.convertAndSend(CHANNEL, userName);
+        log.debug("Token epoch of {} bumped to {}", userName, epoch);
+        return epoch == null ? 0L : epoch;
+    }
+
+    @Override
+    public void onMessage(@NonNull final Message message, final byte[] pattern) {
+        invalidate(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private void invalidate(final String userName) {
+        invalidations.incrementAndGet();
+        localEpochs.remove(userName);
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.testtaskeffectivemobile.security;
+
+public record TokenPair(String accessToken, String refreshToken) {
+}
@@ -0,0 +1,114 @@
+package com.example.testtaskeffectivemobile.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+public class TokenStore {
+
+    private static final String ACCESS_TOKEN_KEY = "access_token:";
+    private static final String REFRESH_FAMILY_KEY = "refresh_family:";
+
+    // Регистрация пары токенов при логине одним обращением к Redis. Каждый логин открывает свое семейство
+    // refresh token, поэтому вход с другого устройства не трогает уже выданные сессии
+    private static final RedisScript<Long> ISSUE_TOKENS = new DefaultRedisScript<>("""
+            redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+            redis.call('HSET', KEYS[2], 'cur', ARGV[3])
+            redis.call('PEXPIRE', KEYS[2], ARGV[4])
+            return 1
+            """, Long.class);
+
+    // Ротация refresh token внутри семейства: cur - действующий jti, prev - предыдущий.
+    // Предъявлен prev - параллельный refresh уже выполнен, предъявлен любой другой jti семейства - повторное
+    // использование, семейство удаляется
+    private static final RedisScript<Long> ROTATE_REFRESH_TOKEN = new DefaultRedisScript<>("""
+            local cur = redis.call('HGET', KEYS[1], 'cur')
+            if not cur then
+                return 0
+            end
+            if cur == ARGV[1] then
+                redis.call('HSET', KEYS[1], 'cur', ARGV[2], 'prev', ARGV[1])
+                redis.call('PEXPIRE', KEYS[1], ARGV[3])
+                redis.call('SET', KEYS[2], ARGV[4], 'PX', ARGV[5])
+                return 1
+            end
+            if redis.call('HGET', KEYS[1], 'prev') == ARGV[1] then
+                return 2
+            end
+            redis.call('DEL', KEYS[1])
+            return 3
+            """, Long.class);
+
+    // Коды результата ROTATE_REFRESH_TOKEN заданы явно и не зависят от порядка констант
+    public enum RotationResult {
+        MISSING(0),
+        ROTATED(1),
+        SUPERSEDED(2),
+        REUSED(3);
+
+        private final long code;
+
+        RotationResult(final long code) {
+            this.code = code;
+        }
+
+        static RotationResult of(final Long code) {
+            if (code != null) {
+                for (RotationResult result : values()) {
+                    if (result.code == code) {
+                        return result;
+                    }
+                }
+            }
+            return MISSING;
+        }
+    }
+
+    private final StringRedisTemplate redisTemplate;
+
+    public void registerTokens(
+            final String accessTokenId,
+            final String refreshTokenId,
+            final String familyId,
+            final String userName,
+            final Duration accessTtl,
+            final Duration refreshTtl
+    ) {
+        redisTemplate.execute(ISSUE_TOKENS,
+                List.of(ACCESS_TOKEN_KEY + accessTokenId, REFRESH_FAMILY_KEY + familyId),
+                userName,
+                String.valueOf(accessTtl.toMillis()),
+                refreshTokenId,
+                String.valueOf(refreshTtl.toMillis()));
+    }
+
+    public RotationResult rotateRefreshToken(
+            final String presentedTokenId,
+            final String newRefreshTokenId,
+            final String newAccessTokenId,
+            final String familyId,
+            final String userName,
+            final Duration accessTtl,
+            final Duration refreshTtl
+    ) {
+        final Long result = redisTemplate.execute(ROTATE_REFRESH_TOKEN,
+                List.of(REFRESH_FAMILY_KEY + familyId, ACCESS_TOKEN_KEY + newAccessTokenId),
+                presentedTokenId,
+                newRefreshTokenId,
+                String.valueOf(refreshTtl.toMillis()),
+                userName,
+                String.valueOf(accessTtl.toMillis()));
+        return RotationResult.of(result);
+    }
+
+    public boolean isAccessTokenActive(final String tokenId) {
+        return tokenId != null && Boolean.TRUE.equals(redisTemplate.hasKey(ACCESS_TOKEN_KEY + tokenId));
+    }
+}
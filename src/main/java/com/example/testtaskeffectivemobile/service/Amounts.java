@@ -0,0 +1,34 @@
+package com.example.testtaskeffectivemobile.service;
+
+import com.example.testtaskeffectivemobile.entity.Money;
+import com.example.testtaskeffectivemobile.exception.BusinessException;
+import com.example.testtaskeffectivemobile.exception.ErrorCode;
+
+import java.math.BigDecimal;
+
+// Суммы из запросов переводятся в Money один раз на входе, дальше сервисы считают в копейках
+final class Amounts {
+
+    private Amounts() {
+    }
+
+    // Дробные копейки и суммы вне long отклоняются, а не округляются колонкой DECIMAL(19,2)
+    static Money toMoney(BigDecimal amount) {
+        if (amount == null) {
+            throw new BusinessException(ErrorCode.INVALID_AMOUNT);
+        }
+        try {
+            return Money.of(amount);
+        } catch (ArithmeticException ex) {
+            throw new BusinessException(ErrorCode.INVALID_AMOUNT);
+        }
+    }
+
+    static Money transferAmount(BigDecimal amount) {
+        Money money = toMoney(amount);
+        if (!money.isPositive()) {
+            throw new BusinessException(ErrorCode.INVALID_AMOUNT);
+        }
+        return money;
+    }
+}
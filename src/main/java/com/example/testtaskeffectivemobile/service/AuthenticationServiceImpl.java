@@ -12,6 +12,7 @@ import com.example.testtaskeffectivemobile.mapper.UserMapper;
 import com.example.testtaskeffectivemobile.repository.RoleRepository;
 import com.example.testtaskeffectivemobile.repository.UserRepository;
 import com.example.testtaskeffectivemobile.security.JwtService;
+import com.example.testtaskeffectivemobile.security.TokenPair;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -45,13 +46,12 @@ public class AuthenticationServiceImpl implements AuthenticationService {
         );
 
         final User user = (User) authentication.getPrincipal();
-        final String accessToken =this.jwtService.generateAccessToken(user.getUsername());
-        final String refreshToken =this.jwtService.generateRefreshToken(user.getUsername());
+        final TokenPair tokens = this.jwtService.issueTokens(user);
         final String tokenType = "Bearer";
 
         return AuthenticationResponse.builder()
-                .accessToken(accessToken)
-                .refreshToken(refreshToken)
+                .accessToken(tokens.accessToken())
+                .refreshToken(tokens.refreshToken())
                 .tokenType(tokenType)
                 .build();
     }
@@ -82,11 +82,11 @@ public class AuthenticationServiceImpl implements AuthenticationService {
 
     @Override
     public AuthenticationResponse refreshToken(RefreshRequest request) {
-        final String newAccessToken = this.jwtService.refreshToken(request.getRefreshToken());
+        final TokenPair tokens = this.jwtService.refreshToken(request.getRefreshToken());
         final String tokenType = "Bearer";
         return AuthenticationResponse.builder()
-                .accessToken(newAccessToken)
-                .refreshToken(request.getRefreshToken())
+                .accessToken(tokens.accessToken())
+                .refreshToken(tokens.refreshToken())
                 .tokenType(tokenType)
                 .build();
     }
@@ -0,0 +1,7 @@
+package com.example.testtaskeffectivemobile.service;
+
+import java.util.List;
+
+// Готовый запрос выгрузки: фильтр проверен и переведен в SQL до начала потокового ответа
+public record CardExportQuery(String sql, List<Object> params) {
+}
@@ -0,0 +1,12 @@
+package com.example.testtaskeffectivemobile.service;
+
+import com.example.testtaskeffectivemobile.dto.request.CardExportFormat;
+import com.example.testtaskeffectivemobile.dto.request.CardFilterRequest;
+
+import java.io.OutputStream;
+
+public interface CardExportService {
+    CardExportQuery prepare(CardFilterRequest filter);
+
+    void export(CardExportQuery query, CardExportFormat format, OutputStream out);
+}
@@ -0,0 +1,179 @@
+package com.example.testtaskeffectivemobile.service;
+
+import com.example.testtaskeffectivemobile.dto.request.CardExportFormat;
+import com.example.testtaskeffectivemobile.dto.request.CardFilterRequest;
+import com.example.testtaskeffectivemobile.dto.request.CardNumberSearchMode;
+import com.example.testtaskeffectivemobile.mapper.CardMapper;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+// Выгрузка карт построчно из forward-only курсора JDBC прямо в ответ: в памяти держится только текущая порция fetch-size.
+// PostgreSQL отдает строки курсором только внутри транзакции, поэтому чтение идет в read-only транзакции
+@Service
+@Slf4j
+public class CardExportServiceImpl implements CardExportService {
+
+    private static final String SELECT_CARDS = """
+            SELECT id, card_number, activation_date, expiration_date, status,
+                   CASE WHEN balance_slots > 0 THEN balance + COALESCE(
+                       (SELECT SUM(s.balance) FROM card_balance_slots s WHERE s.card_id = cards.id), 0)
+                   ELSE balance END AS balance,
+                   user_id
+            FROM cards""";
+    private static final String CSV_HEADER = "id,cardNumber,activationDate,expirationDate,status,balance,userId";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public CardExportServiceImpl(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            @Value("${cards.export.fetch-size:1000}") int fetchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    // Ошибка фильтра должна вернуться клиенту как 400 до начала потока, поэтому SQL строится в потоке запроса
+    @Override
+    public CardExportQuery prepare(CardFilterRequest filter) {
+        final List<Object> params = new ArrayList<>();
+        final String sql = SELECT_CARDS + where(filter, params) + " ORDER BY created_date, id";
+        return new CardExportQuery(sql, List.copyOf(params));
+    }
+
+    @Override
+    public void export(CardExportQuery query, CardExportFormat format, OutputStream out) {
+        final String sql = query.sql();
+        final List<Object> params = query.params();
+        final long started = System.currentTimeMillis();
+        final long[] rows = {0};
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try {
+                if (format == CardExportFormat.CSV) {
+                    exportCsv(sql, params, out, rows);
+                } else {
+                    exportNdjson(sql, params, out, rows);
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        log.info("Exported {} cards as {} in {} ms", rows[0], format, System.currentTimeMillis() - started);
+    }
+
+    private void exportNdjson(String sql, List<Object> params, OutputStream out, long[] rows) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            query(sql, params, rs -> {
+                try {
+                    generator.writeStartObject();
+                    generator.writeStringField("id", rs.getString("id"));
+                    generator.writeStringField("cardNumber", CardMapper.maskCardNumber(rs.getString("card_number")));
+                    generator.writeStringField("activationDate", rs.getString("activation_date"));
+                    generator.writeStringField("expirationDate", rs.getString("expiration_date"));
+                    generator.writeStringField("status", rs.getString("status"));
+                    generator.writeNumberField("balance", rs.getBigDecimal("balance"));
+                    generator.writeStringField("userId", rs.getString("user_id"));
+                    generator.writeEndObject();
+                    generator.writeRaw('\n');
+                    rows[0]++;
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        }
+    }
+
+    private void exportCsv(String sql, List<Object> params, OutputStream out, long[] rows) throws IOException {
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        query(sql, params, rs -> {
+            try {
+                writer.write(rs.getString("id"));
+                writer.write(',');
+                writer.write(CardMapper.maskCardNumber(rs.getString("card_number")));
+                writer.write(',');
+                writer.write(rs.getString("activation_date"));
+                writer.write(',');
+                writer.write(rs.getString("expiration_date"));
+                writer.write(',');
+                writer.write(rs.getString("status"));
+                writer.write(',');
+                writer.write(rs.getBigDecimal("balance").toPlainString());
+                writer.write(',');
+                writer.write(rs.getString("user_id"));
+                writer.write('\n');
+                rows[0]++;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        writer.flush();
+    }
+
+    private void query(String sql, List<Object> params, RowCallbackHandler handler) {
+        jdbcTemplate.query(connection -> {
+            final PreparedStatement statement = connection.prepareStatement(
+                    sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            for (int i = 0; i < params.size(); i++) {
+                statement.setObject(i + 1, params.get(i));
+            }
+            return statement;
+        }, handler);
+    }
+
+    private static String where(CardFilterRequest filter, List<Object> params) {
+        final List<String> conditions = new ArrayList<>();
+        final String cardNumber = filter.getCardNumber();
+        if (cardNumber != null && !cardNumber.isEmpty()) {
+            switch (CardNumberSearchMode.resolve(cardNumber, filter.getCardNumberMode())) {
+                case EXACT -> {
+                    conditions.add("card_number = ?");
+                    params.add(cardNumber);
+                }
+                case LAST4 -> {
+                    conditions.add("card_number_last4 = ?");
+                    params.add(cardNumber);
+                }
+                case BIN -> {
+                    conditions.add("card_number LIKE ?");
+                    params.add(cardNumber + "%");
+                }
+            }
+        }
+        if (filter.getStatus() != null) {
+            conditions.add("status = ?");
+            params.add(filter.getStatus().name());
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+}
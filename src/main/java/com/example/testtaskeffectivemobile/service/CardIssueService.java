@@ -0,0 +1,15 @@
+package com.example.testtaskeffectivemobile.service;
+
+import com.example.testtaskeffectivemobile.dto.request.CardCreateRequest;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+public interface CardIssueService {
+    void validateBatch(List<CardCreateRequest> requests);
+
+    List<CardCreateRequest> readCsv(InputStream in);
+
+    void issue(List<CardCreateRequest> requests, OutputStream out);
+}
@@ -0,0 +1,227 @@
+package com.example.testtaskeffectivemobile.service;
+
+import com.example.testtaskeffectivemobile.dto.request.CardCreateRequest;
+import com.example.testtaskeffectivemobile.dto.response.CardIssueResult;
+import com.example.testtaskeffectivemobile.dto.response.CardIssueStatus;
+import com.example.testtaskeffectivemobile.entity.Card;
+import com.example.testtaskeffectivemobile.entity.User;
+import com.example.testtaskeffectivemobile.exception.BusinessException;
+import com.example.testtaskeffectivemobile.exception.ErrorCode;
+import com.example.testtaskeffectivemobile.mapper.CardMapper;
+import com.example.testtaskeffectivemobile.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Массовый выпуск карт порциями по chunk-size: на порцию один запрос существующих пользователей, вставка карт
+// через batch INSERT Hibernate (hibernate.jdbc.batch_size, order_inserts) и отдельная транзакция.
+// Результаты порции пишутся в ответ NDJSON сразу после ее COMMIT, persistence context очищается
+@Service
+@Slf4j
+public class CardIssueServiceImpl implements CardIssueService {
+
+    private static final String CSV_HEADER = "userId,initialBalance";
+    private static final HibernateJpaDialect JPA_DIALECT = new HibernateJpaDialect();
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final UserRepository userRepository;
+    private final CardNumberAllocator cardNumberAllocator;
+    private final CardMapper cardMapper;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter resultWriter;
+    private final int chunkSize;
+    private final int maxSize;
+
+    public CardIssueServiceImpl(
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            UserRepository userRepository,
+            CardNumberAllocator cardNumberAllocator,
+            CardMapper cardMapper,
+            ObjectMapper objectMapper,
+            @Value("${cards.issue.chunk-size:1000}") int chunkSize,
+            @Value("${cards.issue.max-size:100000}") int maxSize
+    ) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.userRepository = userRepository;
+        this.cardNumberAllocator = cardNumberAllocator;
+        this.cardMapper = cardMapper;
+        this.objectMapper = objectMapper;
+        // Сброс в сокет один раз на порцию, а не после каждой строки
+        this.resultWriter = objectMapper.writerFor(CardIssueResult.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.chunkSize = chunkSize;
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public void validateBatch(List<CardCreateRequest> requests) {
+        if (requests == null || requests.isEmpty() || requests.size() > maxSize) {
+            throw new BusinessException(ErrorCode.INVALID_CARD_ISSUE_BATCH, maxSize);
+        }
+        for (int i = 0; i < requests.size(); i++) {
+            if (requests.get(i) == null) {
+                throw new BusinessException(ErrorCode.INVALID_CARD_ISSUE_ITEM, i);
+            }
+        }
+    }
+
+    // Строки "userId,initialBalance", заголовок и пустые строки пропускаются, пустой баланс - 0
+    @Override
+    public List<CardCreateRequest> readCsv(InputStream in) {
+        List<CardCreateRequest> requests = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        try {
+            int lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.strip();
+                if (line.isEmpty() || (lineNumber == 1 && line.equalsIgnoreCase(CSV_HEADER))) {
+                    continue;
+                }
+                if (requests.size() == maxSize) {
+                    throw new BusinessException(ErrorCode.INVALID_CARD_ISSUE_BATCH, maxSize);
+                }
+                requests.add(parseCsvLine(line, lineNumber));
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        validateBatch(requests);
+        return requests;
+    }
+
+    private static CardCreateRequest parseCsvLine(String line, int lineNumber) {
+        String[] columns = line.split(",", -1);
+        if (columns.length > 2 || columns[0].isBlank()) {
+            throw new BusinessException(ErrorCode.INVALID_CARD_ISSUE_CSV, lineNumber);
+        }
+        String balance = columns.length == 2 ? columns[1].strip() : "";
+        try {
+            return CardCreateRequest.builder()
+                    .userId(columns[0].strip())
+                    .initialBalance(balance.isEmpty() ? null : new BigDecimal(balance))
+                    .build();
+        } catch (NumberFormatException ex) {
+            throw new BusinessException(ErrorCode.INVALID_CARD_ISSUE_CSV, lineNumber);
+        }
+    }
+
+    @Override
+    public void issue(List<CardCreateRequest> requests, OutputStream out) {
+        final long started = System.currentTimeMillis();
+        int issued = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            for (int from = 0; from < requests.size(); from += chunkSize) {
+                final List<CardCreateRequest> chunk = requests.subList(from, Math.min(from + chunkSize, requests.size()));
+                final int offset = from;
+                List<CardIssueResult> results = issueChunkOrReject(chunk, offset);
+                for (CardIssueResult result : results) {
+                    resultWriter.writeValue(generator, result);
+                    generator.writeRaw('\n');
+                    if (result.getStatus() == CardIssueStatus.ISSUED) {
+                        issued++;
+                    }
+                }
+                generator.flush();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        log.info("Issued {} of {} cards in {} ms", issued, requests.size(), System.currentTimeMillis() - started);
+    }
+
+    // Нарушение ограничения БД (номер карты уже занят, пользователь удален после проверки) откатывает всю порцию:
+    // ее строки отклоняются, следующие порции выпускаются
+    private List<CardIssueResult> issueChunkOrReject(List<CardCreateRequest> chunk, int offset) {
+        try {
+            return transactionTemplate.execute(status -> issueChunk(chunk, offset));
+        } catch (DataIntegrityViolationException ex) {
+            log.warn("Card issue chunk at {} of {} cards rolled back", offset, chunk.size(), ex);
+            BusinessException rejection = new BusinessException(ErrorCode.CARD_ISSUE_CHUNK_REJECTED);
+            List<CardIssueResult> results = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                results.add(rejected(offset + i, rejection));
+            }
+            return results;
+        }
+    }
+
+    private List<CardIssueResult> issueChunk(List<CardCreateRequest> chunk, int offset) {
+        Set<String> userIds = chunk.stream()
+                .map(CardCreateRequest::getUserId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<String> existing = userIds.isEmpty() ? Set.of() : new HashSet<>(userRepository.findExistingIds(userIds));
+
+        List<CardIssueResult> results = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            CardCreateRequest request = chunk.get(i);
+            try {
+                if (request.getUserId() == null || !existing.contains(request.getUserId())) {
+                    throw new BusinessException(ErrorCode.USER_NOT_FOUND, request.getUserId());
+                }
+                // Ссылка на пользователя без SELECT, его существование уже проверено
+                User user = entityManager.getReference(User.class, request.getUserId());
+                Card card = CardServiceImpl.newCard(cardNumberAllocator.allocate(), request.getInitialBalance(), user);
+                entityManager.persist(card);
+                results.add(CardIssueResult.builder()
+                        .index(offset + i)
+                        .status(CardIssueStatus.ISSUED)
+                        .card(cardMapper.toDTO(card))
+                        .build());
+            } catch (BusinessException ex) {
+                results.add(rejected(offset + i, ex));
+            }
+        }
+        // INSERT уходят пачками по hibernate.jdbc.batch_size, после flush сущности порции больше не нужны
+        try {
+            entityManager.flush();
+        } catch (PersistenceException ex) {
+            DataAccessException translated = JPA_DIALECT.translateExceptionIfPossible(ex);
+            throw translated != null ? translated : ex;
+        }
+        entityManager.clear();
+        return results;
+    }
+
+    private static CardIssueResult rejected(int index, BusinessException ex) {
+        return CardIssueResult.builder()
+                .index(index)
+                .status(CardIssueStatus.REJECTED)
+                .errorCode(ex.getErrorCode().getCode())
+                .message(ex.getMessage())
+                .build();
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.testtaskeffectivemobile.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Выдает уникальные номера карт: BIN + номер счета + контрольная цифра Луна. Номера счетов резервируются в БД
+// блоками по BLOCK_SIZE (одно nextval на блок), поток забирает из блока поддиапазон CAS-ом и дальше выдает номера
+// из него без синхронизации. Проверять уникальность в БД не нужно: диапазоны не пересекаются между узлами и потоками,
+// уникальный индекс на card_number остается страховкой. Номера из неиспользованных остатков просто пропадают
+@Component
+@Slf4j
+public class CardNumberAllocator {
+
+    public static final int CARD_NUMBER_LENGTH = 16;
+    // Размер блока зашит в код: последовательность хранит номер блока, и смена размера сдвинула бы диапазоны
+    static final long BLOCK_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String bin;
+    private final int subBlockSize;
+    private final long accountCapacity;
+    private final ThreadLocal<SubBlock> subBlocks = ThreadLocal.withInitial(SubBlock::new);
+
+    private volatile Block block = new Block(0, 0);
+
+    public CardNumberAllocator(
+            JdbcTemplate jdbcTemplate,
+            @Value("${cards.number.bin:400000}") String bin,
+            @Value("${cards.number.sub-block-size:100}") int subBlockSize
+    ) {
+        if (!bin.matches("\\d{6,8}")) {
+            throw new IllegalStateException("cards.number.bin must be 6 to 8 digits: " + bin);
+        }
+        if (subBlockSize < 1 || subBlockSize > BLOCK_SIZE) {
+            throw new IllegalStateException("cards.number.sub-block-size must be between 1 and " + BLOCK_SIZE);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.bin = bin;
+        this.subBlockSize = subBlockSize;
+        this.accountCapacity = pow10(CARD_NUMBER_LENGTH - 1 - bin.length());
+    }
+
+    public String allocate() {
+        SubBlock sub = subBlocks.get();
+        if (sub.next == sub.end) {
+            takeSubBlock(sub);
+        }
+        return cardNumber(sub.next++);
+    }
+
+    private void takeSubBlock(SubBlock sub) {
+        while (true) {
+            Block current = block;
+            long start = current.next.getAndAdd(subBlockSize);
+            if (start < current.end) {
+                sub.next = start;
+                sub.end = Math.min(start + subBlockSize, current.end);
+                return;
+            }
+            reserveBlock(current);
+        }
+    }
+
+    // Блок резервирует один поток, остальные ждут только на этом редком шаге
+    private synchronized void reserveBlock(Block exhausted) {
+        if (block != exhausted) {
+            return;
+        }
+        long index = jdbcTemplate.queryForObject("SELECT nextval('card_number_block_seq')", Long.class);
+        long start = index * BLOCK_SIZE;
+        if (start + BLOCK_SIZE > accountCapacity) {
+            throw new IllegalStateException("Card numbers for BIN " + bin + " are exhausted");
+        }
+        block = new Block(start, start + BLOCK_SIZE);
+        log.debug("Reserved card number block {} for BIN {}", index, bin);
+    }
+
+    private String cardNumber(long account) {
+        StringBuilder number = new StringBuilder(CARD_NUMBER_LENGTH).append(bin);
+        String digits = Long.toString(account);
+        number.append("0".repeat(CARD_NUMBER_LENGTH - 1 - bin.length() - digits.length())).append(digits);
+        return number.append(luhnCheckDigit(number)).toString();
+    }
+
+    static int luhnCheckDigit(CharSequence payload) {
+        int sum = 0;
+        boolean doubled = true;
+        for (int i = payload.length() - 1; i >= 0; i--) {
+            int digit = payload.charAt(i) - '0';
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    private static long pow10(int exponent) {
+        long value = 1;
+        for (int i = 0; i < exponent; i++) {
+            value *= 10;
+        }
+        return value;
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+
+    private static final class SubBlock {
+        private long next;
+        private long end;
+    }
+}
@@ -2,21 +2,24 @@ package com.example.testtaskeffectivemobile.service;
 
 import com.example.testtaskeffectivemobile.dto.request.CardCreateRequest;
 import com.example.testtaskeffectivemobile.dto.request.CardFilterRequest;
+import com.example.testtaskeffectivemobile.dto.request.CardPageRequest;
 import com.example.testtaskeffectivemobile.dto.request.TransferRequest;
 import com.example.testtaskeffectivemobile.dto.response.CardDTO;
-import org.springframework.data.domain.Page;
+import com.example.testtaskeffectivemobile.dto.response.CardPageResponse;
+import com.example.testtaskeffectivemobile.security.CallerContext;
 
 import java.util.List;
 
 public interface CardService {
     CardDTO createCard(CardCreateRequest request);
-    CardDTO blockCard(String cardId, String currentUserId);
-    CardDTO activateCard(String cardId, String currentUserId);
+    CardDTO blockCard(String cardId, CallerContext caller);
+    CardDTO activateCard(String cardId, CallerContext caller);
     void deleteCard(String cardId);
-    CardDTO getCardById(String cardId, String currentUserId);
-    List<CardDTO> getUserCards(CardFilterRequest filter, String currentUserId);
-    List<CardDTO> getAllCards(CardFilterRequest filter);
+    CardDTO getCardById(String cardId, CallerContext caller);
+    CardPageResponse getUserCards(CardFilterRequest filter, CardPageRequest page, String currentUserId);
+    CardPageResponse getAllCards(CardFilterRequest filter, CardPageRequest page);
     void transfer(TransferRequest request, String currentUserId);
+    CardDTO setBalanceSlots(String cardId, int slots);
     List<CardDTO> getUserCardsForTransfer(String userId);
     List<CardDTO> getUserCardsByUserId(String userId);
 }
\ No newline at end of file
@@ -2,27 +2,39 @@ package com.example.testtaskeffectivemobile.service;
 
 import com.example.testtaskeffectivemobile.dto.request.CardCreateRequest;
 import com.example.testtaskeffectivemobile.dto.request.CardFilterRequest;
+import com.example.testtaskeffectivemobile.dto.request.CardPageRequest;
+import com.example.testtaskeffectivemobile.dto.request.CardSortOrder;
 import com.example.testtaskeffectivemobile.dto.request.TransferRequest;
 import com.example.testtaskeffectivemobile.dto.response.CardDTO;
+import com.example.testtaskeffectivemobile.dto.response.CardPageResponse;
 import com.example.testtaskeffectivemobile.entity.Card;
 import com.example.testtaskeffectivemobile.entity.CardStatus;
+import com.example.testtaskeffectivemobile.entity.Money;
 import com.example.testtaskeffectivemobile.entity.User;
 import com.example.testtaskeffectivemobile.exception.BusinessException;
 import com.example.testtaskeffectivemobile.exception.ErrorCode;
 import com.example.testtaskeffectivemobile.mapper.CardMapper;
+import com.example.testtaskeffectivemobile.repository.CardCursor;
+import com.example.testtaskeffectivemobile.repository.CardListItem;
 import com.example.testtaskeffectivemobile.repository.CardRepository;
+import com.example.testtaskeffectivemobile.repository.CardTransactionRepository;
+import com.example.testtaskeffectivemobile.repository.CardTransfer;
+import com.example.testtaskeffectivemobile.repository.CardSpecifications;
 import com.example.testtaskeffectivemobile.repository.UserRepository;
+import com.example.testtaskeffectivemobile.security.CallerContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import jakarta.persistence.criteria.Predicate;
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.ArrayList;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Service
 @RequiredArgsConstructor
@@ -30,8 +42,20 @@ import java.util.List;
 public class CardServiceImpl implements CardService {
 
     private final CardRepository cardRepository;
+    private final CardTransactionRepository cardTransactionRepository;
     private final UserRepository userRepository;
     private final CardMapper cardMapper;
+    private final CardNumberAllocator cardNumberAllocator;
+    private final HotCardRegistry hotCardRegistry;
+
+    @Value("${cards.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${cards.page.max-size:100}")
+    private int maxPageSize;
+
+    @Value("${cards.hot.max-slots:64}")
+    private int maxBalanceSlots;
 
     @Override
     @Transactional
@@ -39,31 +63,37 @@ public class CardServiceImpl implements CardService {
         User user = userRepository.findById(request.getUserId())
                 .orElseThrow(() -> new BusinessException(ErrorCode.USER_NOT_FOUND, request.getUserId()));
 
-        String cardNumber = generateCardNumber();
+        String cardNumber = cardNumberAllocator.allocate();
+
+        Card card = newCard(cardNumber, request.getInitialBalance(), user);
+
+        Card savedCard = cardRepository.save(card);
+        log.info("Created card {} for user {}", cardNumber, user.getEmail());
+
+        return cardMapper.toDTO(savedCard);
+    }
 
-        Card card = Card.builder()
+    // Общая для одиночного и массового выпуска: активная карта на 3 года
+    static Card newCard(String cardNumber, BigDecimal initialBalance, User user) {
+        LocalDate today = LocalDate.now();
+        return Card.builder()
                 .cardNumber(cardNumber)
-                .activationDate(LocalDate.now())
-                .expirationDate(LocalDate.now().plusYears(3))
+                .activationDate(today)
+                .expirationDate(today.plusYears(3))
                 .status(CardStatus.ACTIVE)
-                .balance(request.getInitialBalance() != null ? request.getInitialBalance() : BigDecimal.ZERO)
+                .balance(initialBalance != null ? Amounts.toMoney(initialBalance) : Money.ZERO)
                 .user(user)
                 .createdBy("SYSTEM")
                 .lastModifiedBy("SYSTEM")
                 .build();
-
-        Card savedCard = cardRepository.save(card);
-        log.info("Created card {} for user {}", cardNumber, user.getEmail());
-
-        return cardMapper.toDTO(savedCard);
     }
 
     @Override
     @Transactional
-    public CardDTO blockCard(String cardId, String currentUserId) {
+    public CardDTO blockCard(String cardId, CallerContext caller) {
         Card card = cardRepository.findById(cardId)
                 .orElseThrow(() -> new BusinessException(ErrorCode.CARD_NOT_FOUND, cardId));
-        if (!isAdmin(currentUserId) && !card.getUser().getId().equals(currentUserId)) {
+        if (!caller.canAccess(card.getUser().getId())) {
             throw new BusinessException(ErrorCode.ACCESS_DENIED);
         }
         if (card.getStatus() == CardStatus.BLOCKED) {
@@ -71,24 +101,24 @@ public class CardServiceImpl implements CardService {
         }
         card.setStatus(CardStatus.BLOCKED);
         Card savedCard = cardRepository.save(card);
-        log.info("Card {} blocked by user {}", cardId, currentUserId);
+        log.info("Card {} blocked by user {}", cardId, caller.userId());
         return cardMapper.toDTO(savedCard);
     }
 
     @Override
     @Transactional
-    public CardDTO activateCard(String cardId, String currentUserId) {
-        Card card = cardRepository.findById(cardId)
-                .orElseThrow(() -> new BusinessException(ErrorCode.CARD_NOT_FOUND, cardId));
-        if (!isAdmin(currentUserId)) {
+    public CardDTO activateCard(String cardId, CallerContext caller) {
+        if (!caller.isAdmin()) {
             throw new BusinessException(ErrorCode.ACCESS_DENIED);
         }
+        Card card = cardRepository.findById(cardId)
+                .orElseThrow(() -> new BusinessException(ErrorCode.CARD_NOT_FOUND, cardId));
         if (card.getStatus() == CardStatus.ACTIVE) {
             throw new BusinessException(ErrorCode.CARD_ALREADY_ACTIVE);
         }
         card.setStatus(CardStatus.ACTIVE);
         Card savedCard = cardRepository.save(card);
-        log.info("Card {} activated by admin {}", cardId, currentUserId);
+        log.info("Card {} activated by admin {}", cardId, caller.userId());
         return cardMapper.toDTO(savedCard);
     }
 
@@ -102,91 +132,79 @@ public class CardServiceImpl implements CardService {
     }
 
     @Override
-    public CardDTO getCardById(String cardId, String currentUserId) {
-        Card card = cardRepository.findById(cardId)
+    @Transactional(readOnly = true)
+    public CardDTO getCardById(String cardId, CallerContext caller) {
+        CardDTO card = cardRepository.findDtoById(cardId)
                 .orElseThrow(() -> new BusinessException(ErrorCode.CARD_NOT_FOUND, cardId));
-        if (!isAdmin(currentUserId) && !card.getUser().getId().equals(currentUserId)) {
+        if (!caller.canAccess(card.getUserId())) {
             throw new BusinessException(ErrorCode.ACCESS_DENIED);
         }
-        return cardMapper.toDTO(card);
+        return card;
     }
 
     @Override
-    public List<CardDTO> getUserCards(CardFilterRequest filter, String currentUserId) {
-        Specification<Card> spec = (root, query, cb) -> {
-            List<Predicate> predicates = new ArrayList<>();
-            predicates.add(cb.equal(root.get("user").get("id"), currentUserId));
-            if (filter.getCardNumber() != null && !filter.getCardNumber().isEmpty()) {
-                predicates.add(cb.like(root.get("cardNumber"), "%" + filter.getCardNumber() + "%"));
-            }
-            if (filter.getStatus() != null) {
-                predicates.add(cb.equal(root.get("status"), filter.getStatus()));
-            }
-            return cb.and(predicates.toArray(new Predicate[0]));
-        };
-        return cardRepository.findAll(spec).stream()
-                .map(cardMapper::toDTO)
-                .toList();
+    @Transactional(readOnly = true)
+    public CardPageResponse getUserCards(CardFilterRequest filter, CardPageRequest page, String currentUserId) {
+        return findPage(CardSpecifications.byFilter(filter, currentUserId), page);
     }
 
     @Override
-    public List<CardDTO> getAllCards(CardFilterRequest filter) {
-        Specification<Card> spec = (root, query, cb) -> {
-            List<Predicate> predicates = new ArrayList<>();
-
-            if (filter.getCardNumber() != null && !filter.getCardNumber().isEmpty()) {
-                predicates.add(cb.like(root.get("cardNumber"), "%" + filter.getCardNumber() + "%"));
-            }
-            if (filter.getStatus() != null) {
-                predicates.add(cb.equal(root.get("status"), filter.getStatus()));
-            }
-            return cb.and(predicates.toArray(new Predicate[0]));
-        };
-        return cardRepository.findAll(spec).stream()
-                .map(cardMapper::toDTO)
-                .toList();
+    @Transactional(readOnly = true)
+    public CardPageResponse getAllCards(CardFilterRequest filter, CardPageRequest page) {
+        return findPage(CardSpecifications.byFilter(filter, null), page);
     }
 
     @Override
-    @Transactional
+    @Transactional(timeoutString = "${cards.transfer.timeout-seconds:10}")
     public void transfer(TransferRequest request, String currentUserId) {
-        Card fromCard = cardRepository.findById(request.getFromCardId())
-                .orElseThrow(() -> new BusinessException(ErrorCode.CARD_NOT_FOUND, request.getFromCardId()));
-        Card toCard = cardRepository.findById(request.getToCardId())
-                .orElseThrow(() -> new BusinessException(ErrorCode.CARD_NOT_FOUND, request.getToCardId()));
-        if (!fromCard.getUser().getId().equals(currentUserId) ||
-                !toCard.getUser().getId().equals(currentUserId)) {
-            throw new BusinessException(ErrorCode.ACCESS_DENIED);
+        Money amount = Amounts.transferAmount(request.getAmount());
+        String fromCardId = request.getFromCardId();
+        String toCardId = request.getToCardId();
+        // Пустой id отклоняется так же, как в TransferLedger.apply, до сравнения id
+        if (fromCardId == null || toCardId == null) {
+            throw new BusinessException(ErrorCode.CARD_NOT_FOUND, fromCardId == null ? fromCardId : toCardId);
         }
-        if (fromCard.getStatus() != CardStatus.ACTIVE) {
-            throw new BusinessException(ErrorCode.CARD_NOT_ACTIVE);
+        // Строки обновляются в порядке id, чтобы встречные переводы не блокировали друг друга
+        if (fromCardId.compareTo(toCardId) <= 0) {
+            debit(fromCardId, currentUserId, amount);
+            credit(toCardId, currentUserId, amount);
+        } else {
+            credit(toCardId, currentUserId, amount);
+            debit(fromCardId, currentUserId, amount);
         }
-        if (toCard.getStatus() != CardStatus.ACTIVE) {
-            throw new BusinessException(ErrorCode.CARD_NOT_ACTIVE);
+        cardTransactionRepository.insertAll(List.of(new CardTransfer(fromCardId, toCardId, amount, currentUserId)));
+        log.info("Transfer completed: {} from card {} to card {}", amount, fromCardId, toCardId);
+    }
+
+    @Override
+    @Transactional
+    public CardDTO setBalanceSlots(String cardId, int slots) {
+        if (slots < 0 || slots > maxBalanceSlots) {
+            throw new BusinessException(ErrorCode.INVALID_BALANCE_SLOTS, maxBalanceSlots);
         }
-        if (fromCard.getBalance().compareTo(request.getAmount()) < 0) {
-            throw new BusinessException(ErrorCode.INSUFFICIENT_FUNDS);
+        // Остатки старых слотов переносятся в основной баланс до пересоздания слотов
+        if (cardRepository.sweepBalanceSlots(cardId) == 0) {
+            throw new BusinessException(ErrorCode.CARD_NOT_FOUND, cardId);
         }
-        if (request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
-            throw new BusinessException(ErrorCode.INVALID_AMOUNT);
+        cardRepository.deleteBalanceSlots(cardId);
+        if (slots > 0) {
+            cardRepository.createBalanceSlots(cardId, slots);
         }
-        fromCard.setBalance(fromCard.getBalance().subtract(request.getAmount()));
-        toCard.setBalance(toCard.getBalance().add(request.getAmount()));
-        cardRepository.save(fromCard);
-        cardRepository.save(toCard);
-        log.info("Transfer completed: {} from card {} to card {}",
-                request.getAmount(), request.getFromCardId(), request.getToCardId());
+        cardRepository.updateBalanceSlots(cardId, slots);
+        hotCardRegistry.put(cardId, slots);
+        log.info("Card {} balance slots set to {}", cardId, slots);
+        return cardRepository.findDtoById(cardId)
+                .orElseThrow(() -> new BusinessException(ErrorCode.CARD_NOT_FOUND, cardId));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<CardDTO> getUserCardsForTransfer(String userId) {
-        List<Card> cards = cardRepository.findByUserIdAndStatus(userId, CardStatus.ACTIVE);
-        return cards.stream()
-                .map(cardMapper::toDTO)
-                .toList();
+        return cardRepository.findDtosByUserIdAndStatus(userId, CardStatus.ACTIVE);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<CardDTO> getUserCardsByUserId(String userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> {
@@ -199,17 +217,8 @@ public class CardServiceImpl implements CardService {
         if (user.isLocked()) {
             throw new BusinessException(ErrorCode.USER_ACCOUNT_LOCKED);
         }
-        List<Card> cards = cardRepository.findByUserId(userId);
-
-        if (cards.isEmpty()) {
-            log.info("No cards found for user {}", userId);
-            return List.of();
-        }
-
-        List<Card> activeCards = cards.stream()
-                .filter(card -> card.getStatus() == CardStatus.ACTIVE)
-                .filter(card -> card.getExpirationDate().isAfter(LocalDate.now()))
-                .toList();
+        List<CardDTO> activeCards = cardRepository.findDtosByUserIdAndStatusExpiringAfter(
+                userId, CardStatus.ACTIVE, LocalDate.now());
 
         if (activeCards.isEmpty()) {
             log.info("No active cards found for user {}", userId);
@@ -217,23 +226,82 @@ public class CardServiceImpl implements CardService {
         }
 
         log.info("Found {} active cards for user {}", activeCards.size(), userId);
-        return activeCards.stream()
-                .map(cardMapper::toDTO)
-                .toList();
+        return activeCards;
     }
 
-    private String generateCardNumber() {
-        StringBuilder cardNumber = new StringBuilder();
-        for (int i = 0; i < 16; i++) {
-            cardNumber.append((int) (Math.random() * 10));
+    private void debit(String cardId, String userId, Money amount) {
+        if (cardRepository.debit(cardId, userId, amount) == 1) {
+            return;
+        }
+        Optional<Card> card = cardRepository.findById(cardId);
+        BusinessException rejection = transferRejected(card, cardId, userId, ErrorCode.INSUFFICIENT_FUNDS);
+        // Не хватило средств на основной строке горячей карты: забираем остатки из слотов и пробуем еще раз.
+        // Признак горячей карты берется из ее строки, а не из локального HotCardRegistry, который может устареть
+        if (rejection.getErrorCode() == ErrorCode.INSUFFICIENT_FUNDS
+                && card.get().getBalanceSlots() > 0
+                && cardRepository.sweepBalanceSlots(cardId) == 1
+                && cardRepository.debit(cardId, userId, amount) == 1) {
+            return;
         }
-        return cardNumber.toString();
+        throw rejection;
     }
 
-    private boolean isAdmin(String userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new BusinessException(ErrorCode.USER_NOT_FOUND, userId));
-        return user.getRoles().stream()
-                .anyMatch(role -> role.getName().equals("ROLE_ADMIN"));
+    private void credit(String cardId, String userId, Money amount) {
+        // Горячая карта получает зачисление в случайный слот, основная строка не становится общей очередью
+        int slots = hotCardRegistry.slotsOf(cardId);
+        if (slots > 0 && cardRepository.creditBalanceSlot(
+                cardId, ThreadLocalRandom.current().nextInt(slots), userId, amount.toBigDecimal()) == 1) {
+            return;
+        }
+        if (cardRepository.credit(cardId, userId, amount) == 0) {
+            throw transferRejected(cardRepository.findById(cardId), cardId, userId, ErrorCode.CARD_NOT_ACTIVE);
+        }
+    }
+
+    // Причина отказа выясняется только после неудачного UPDATE, успешный перевод карты не читает
+    private static BusinessException transferRejected(
+            Optional<Card> card, String cardId, String userId, ErrorCode fallback) {
+        if (card.isEmpty()) {
+            return new BusinessException(ErrorCode.CARD_NOT_FOUND, cardId);
+        }
+        if (!card.get().getUser().getId().equals(userId)) {
+            return new BusinessException(ErrorCode.ACCESS_DENIED);
+        }
+        if (card.get().getStatus() != CardStatus.ACTIVE) {
+            return new BusinessException(ErrorCode.CARD_NOT_ACTIVE);
+        }
+        return new BusinessException(fallback);
+    }
+
+    // Keyset-пагинация: читаем size + 1 строку после курсора, лишняя строка означает наличие следующей страницы
+    private CardPageResponse findPage(Specification<Card> filter, CardPageRequest page) {
+        final CardSortOrder order = page.getSort() != null ? page.getSort() : CardSortOrder.CREATED_DESC;
+        final int size = page.getSize() != null
+                ? Math.min(Math.max(page.getSize(), 1), maxPageSize)
+                : defaultPageSize;
+        Specification<Card> spec = filter;
+        if (page.getCursor() != null && !page.getCursor().isBlank()) {
+            spec = spec.and(CardSpecifications.after(decodeCursor(page.getCursor()), order.getDirection()));
+        }
+        final List<CardListItem> items = cardRepository.findListItems(spec, order.getDirection(), size + 1);
+
+        final boolean hasNext = items.size() > size;
+        final List<CardListItem> content = hasNext ? items.subList(0, size) : items;
+        final CardListItem last = content.isEmpty() ? null : content.get(content.size() - 1);
+        return CardPageResponse.builder()
+                .content(content.stream()
+                        .map(CardListItem::card)
+                        .toList())
+                .nextCursor(hasNext ? new CardCursor(last.createdDate(), last.card().getId()).encode() : null)
+                .hasNext(hasNext)
+                .build();
+    }
+
+    private CardCursor decodeCursor(String cursor) {
+        try {
+            return CardCursor.decode(cursor);
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new BusinessException(ErrorCode.INVALID_CURSOR, cursor);
+        }
     }
 }
\ No newline at end of file
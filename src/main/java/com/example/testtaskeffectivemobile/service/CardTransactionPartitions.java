@@ -0,0 +1,105 @@
+package com.example.testtaskeffectivemobile.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
+// Создает месячные секции card_transactions заранее, чтобы строки не оседали в секции по умолчанию
+@Component
+@Slf4j
+public class CardTransactionPartitions {
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    // Ключ advisory lock: секцию создает один узел, остальные после него видят ее готовой
+    private static final long PARTITION_LOCK = 7_022L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final Counter failures;
+
+    public CardTransactionPartitions(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${cards.transactions.partitions-ahead:2}") int monthsAhead
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.monthsAhead = monthsAhead;
+        this.failures = Counter.builder("cards.transactions.partition.failures")
+                .description("Неудачные попытки создать месячную секцию card_transactions")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${cards.transactions.partition-check-interval:3600000}")
+    public void ensurePartitions() {
+        // Месяц по часам и поясу JVM: ими же CardTransactionRepository.insertAll ставит created_at, и от них же
+        // считаются периоды истории. Секции changeset 007 (по current_date БД) - только стартовый набор,
+        // при запуске эта задача сразу создает секции месяцев приложения
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            try {
+                if (!partitionExists(month)) {
+                    transactionTemplate.executeWithoutResult(status -> createPartition(month));
+                }
+            } catch (RuntimeException ex) {
+                failures.increment();
+                log.error("Failed to create card_transactions partition for {}", month, ex);
+            }
+        }
+    }
+
+    private boolean partitionExists(YearMonth month) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT to_regclass(?) IS NOT NULL", Boolean.class, partitionName(month)));
+    }
+
+    // Строки месяца, уже осевшие в секции по умолчанию, не дают создать его секцию. Тогда секция по умолчанию
+    // отсоединяется, строки переносятся в новую секцию и секция по умолчанию присоединяется обратно - все в одной
+    // транзакции, поэтому параллельные вставки только ждут блокировку
+    private void createPartition(YearMonth month) {
+        jdbcTemplate.execute("SET LOCAL lock_timeout = '5s'");
+        jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + PARTITION_LOCK + ")");
+        if (partitionExists(month)) {
+            return;
+        }
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        Boolean stranded = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM card_transactions_default WHERE created_at >= ? AND created_at < ?)",
+                Boolean.class, from, to);
+        if (!Boolean.TRUE.equals(stranded)) {
+            jdbcTemplate.execute(partitionDdl(month));
+            return;
+        }
+        jdbcTemplate.execute("ALTER TABLE card_transactions DETACH PARTITION card_transactions_default");
+        jdbcTemplate.execute(partitionDdl(month));
+        int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM card_transactions_default "
+                + "WHERE created_at >= ? AND created_at < ? RETURNING *) "
+                + "INSERT INTO " + partitionName(month) + " SELECT * FROM moved", from, to);
+        jdbcTemplate.execute("ALTER TABLE card_transactions ATTACH PARTITION card_transactions_default DEFAULT");
+        log.warn("Moved {} card_transactions rows of {} from the default partition", moved, month);
+    }
+
+    static String partitionName(YearMonth month) {
+        return "card_transactions_p" + month.format(SUFFIX);
+    }
+
+    static String partitionDdl(YearMonth month) {
+        return "CREATE TABLE IF NOT EXISTS " + partitionName(month)
+                + " PARTITION OF card_transactions FOR VALUES FROM ('" + month.atDay(1)
+                + "') TO ('" + month.plusMonths(1).atDay(1) + "')";
+    }
+}
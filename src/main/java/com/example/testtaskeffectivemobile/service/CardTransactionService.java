@@ -0,0 +1,9 @@
+package com.example.testtaskeffectivemobile.service;
+
+import com.example.testtaskeffectivemobile.dto.request.CardTransactionPageRequest;
+import com.example.testtaskeffectivemobile.dto.response.CardTransactionPageResponse;
+import com.example.testtaskeffectivemobile.security.CallerContext;
+
+public interface CardTransactionService {
+    CardTransactionPageResponse getTransactions(String cardId, CardTransactionPageRequest page, CallerContext caller);
+}
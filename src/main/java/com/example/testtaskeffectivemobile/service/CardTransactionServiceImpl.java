@@ -0,0 +1,84 @@
+package com.example.testtaskeffectivemobile.service;
+
+import com.example.testtaskeffectivemobile.dto.request.CardTransactionPageRequest;
+import com.example.testtaskeffectivemobile.dto.response.CardTransactionDTO;
+import com.example.testtaskeffectivemobile.dto.response.CardTransactionPageResponse;
+import com.example.testtaskeffectivemobile.exception.BusinessException;
+import com.example.testtaskeffectivemobile.exception.ErrorCode;
+import com.example.testtaskeffectivemobile.repository.CardRepository;
+import com.example.testtaskeffectivemobile.repository.CardTransactionCursor;
+import com.example.testtaskeffectivemobile.repository.CardTransactionRepository;
+import com.example.testtaskeffectivemobile.security.CallerContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class CardTransactionServiceImpl implements CardTransactionService {
+
+    private final CardRepository cardRepository;
+    private final CardTransactionRepository cardTransactionRepository;
+
+    @Value("${cards.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${cards.page.max-size:100}")
+    private int maxPageSize;
+
+    @Value("${cards.transactions.default-period-days:90}")
+    private int defaultPeriodDays;
+
+    @Value("${cards.transactions.max-period-days:366}")
+    private int maxPeriodDays;
+
+    @Override
+    @Transactional(readOnly = true)
+    public CardTransactionPageResponse getTransactions(
+            String cardId,
+            CardTransactionPageRequest page,
+            CallerContext caller
+    ) {
+        String ownerId = cardRepository.findOwnerIdById(cardId)
+                .orElseThrow(() -> new BusinessException(ErrorCode.CARD_NOT_FOUND, cardId));
+        if (!caller.canAccess(ownerId)) {
+            throw new BusinessException(ErrorCode.ACCESS_DENIED);
+        }
+        // Период всегда ограничен, иначе запрос читал бы все месячные секции журнала
+        LocalDateTime to = page.getTo() != null ? page.getTo() : LocalDateTime.now();
+        LocalDateTime from = page.getFrom() != null ? page.getFrom() : to.minusDays(defaultPeriodDays);
+        if (!from.isBefore(to) || Duration.between(from, to).toDays() > maxPeriodDays) {
+            throw new BusinessException(ErrorCode.INVALID_TRANSACTION_PERIOD, maxPeriodDays);
+        }
+        int size = page.getSize() != null
+                ? Math.min(Math.max(page.getSize(), 1), maxPageSize)
+                : defaultPageSize;
+        CardTransactionCursor after = page.getCursor() != null && !page.getCursor().isBlank()
+                ? decodeCursor(page.getCursor())
+                : null;
+
+        List<CardTransactionDTO> items = cardTransactionRepository.findPage(cardId, from, to, after, size + 1);
+        boolean hasNext = items.size() > size;
+        List<CardTransactionDTO> content = hasNext ? items.subList(0, size) : items;
+        CardTransactionDTO last = content.isEmpty() ? null : content.get(content.size() - 1);
+        return CardTransactionPageResponse.builder()
+                .content(content)
+                .nextCursor(hasNext ? new CardTransactionCursor(last.getCreatedAt(), last.getId()).encode() : null)
+                .hasNext(hasNext)
+                .build();
+    }
+
+    private CardTransactionCursor decodeCursor(String cursor) {
+        try {
+            return CardTransactionCursor.decode(cursor);
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new BusinessException(ErrorCode.INVALID_CURSOR, cursor);
+        }
+    }
+}
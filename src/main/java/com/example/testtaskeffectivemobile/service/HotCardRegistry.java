@@ -0,0 +1,63 @@
+package com.example.testtaskeffectivemobile.service;
+
+import com.example.testtaskeffectivemobile.repository.CardRepository;
+import com.example.testtaskeffectivemobile.repository.HotCard;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Локальная копия списка горячих карт, чтобы зачисление не читало cards.balance_slots на каждый перевод.
+// Устаревшая копия безопасна: зачисление в удаленный слот не находит строку и идет в основной баланс
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HotCardRegistry {
+
+    private final CardRepository cardRepository;
+
+    private volatile Map<String, Integer> slots = Map.of();
+
+    public int slotsOf(String cardId) {
+        return slots.getOrDefault(cardId, 0);
+    }
+
+    public List<String> hotCardIds() {
+        return List.copyOf(slots.keySet());
+    }
+
+    public synchronized void put(String cardId, int balanceSlots) {
+        Map<String, Integer> updated = new HashMap<>(slots);
+        if (balanceSlots > 0) {
+            updated.put(cardId, balanceSlots);
+        } else {
+            updated.remove(cardId);
+        }
+        slots = Map.copyOf(updated);
+    }
+
+    @Scheduled(fixedDelayString = "${cards.hot.refresh-interval:30000}")
+    public synchronized void refresh() {
+        slots = cardRepository.findHotCards().stream()
+                .collect(Collectors.toUnmodifiableMap(HotCard::id, HotCard::balanceSlots));
+    }
+
+    // Периодически сводит слоты в основной баланс, чтобы пути без заимствования из слотов видели весь остаток
+    @Scheduled(
+            initialDelayString = "${cards.hot.sweep-interval:60000}",
+            fixedDelayString = "${cards.hot.sweep-interval:60000}")
+    public void sweep() {
+        for (String cardId : hotCardIds()) {
+            try {
+                cardRepository.sweepBalanceSlots(cardId);
+            } catch (RuntimeException ex) {
+                log.warn("Failed to sweep balance slots of card {}", cardId, ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.testtaskeffectivemobile.service;
+
+import com.example.testtaskeffectivemobile.dto.request.TransferRequest;
+import com.example.testtaskeffectivemobile.entity.Money;
+import com.example.testtaskeffectivemobile.exception.BusinessException;
+import com.example.testtaskeffectivemobile.exception.ErrorCode;
+import com.example.testtaskeffectivemobile.repository.CardTransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// Переводы шардируются по id карты списания на однопоточные партиции. Поток партиции забирает все накопившиеся
+// переводы (до batch-size), блокирует затронутые карты одним SELECT ... FOR UPDATE в порядке id, применяет переводы
+// в памяти в порядке поступления и пишет изменения балансов одним batch UPDATE - одна транзакция и один COMMIT на пачку.
+// Future завершается только после COMMIT, поэтому успешный ответ означает, что перевод зафиксирован в PostgreSQL
+@Service
+@ConditionalOnProperty(name = "cards.transfer.engine.enabled", havingValue = "true")
+@Slf4j
+public class PartitionedTransferEngine implements TransferEngine {
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 30_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CardTransactionRepository cardTransactionRepository;
+    private final CardService cardService;
+    private final HotCardRegistry hotCardRegistry;
+    private final int batchSize;
+    private final long timeoutNanos;
+    private final List<BlockingQueue<PendingTransfer>> queues = new ArrayList<>();
+    private final List<Thread> writers = new ArrayList<>();
+    private final Counter rejected;
+    private final DistributionSummary batchSizes;
+    private final Timer commitTimer;
+
+    private volatile boolean running = true;
+
+    public PartitionedTransferEngine(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            CardTransactionRepository cardTransactionRepository,
+            CardService cardService,
+            HotCardRegistry hotCardRegistry,
+            @Value("${cards.transfer.engine.partitions:4}") int partitions,
+            @Value("${cards.transfer.engine.batch-size:256}") int batchSize,
+            @Value("${cards.transfer.engine.queue-capacity:10000}") int queueCapacity,
+            @Value("${cards.transfer.timeout-seconds:10}") int timeoutSeconds
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setTimeout(timeoutSeconds);
+        this.timeoutNanos = TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        this.cardTransactionRepository = cardTransactionRepository;
+        this.cardService = cardService;
+        this.hotCardRegistry = hotCardRegistry;
+        this.batchSize = batchSize;
+        this.rejected = Counter.builder("cards.transfer.engine.rejected")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("cards.transfer.engine.batch.size")
+                .description("Число переводов в одном COMMIT")
+                .register(meterRegistry);
+        this.commitTimer = Timer.builder("cards.transfer.engine.commit")
+                .description("Время транзакции одной пачки переводов")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        for (int i = 0; i < partitions; i++) {
+            BlockingQueue<PendingTransfer> queue = new ArrayBlockingQueue<>(queueCapacity);
+            Thread writer = new Thread(() -> runPartition(queue), "transfer-partition-" + i);
+            writer.setDaemon(true);
+            queues.add(queue);
+            writers.add(writer);
+        }
+        Gauge.builder("cards.transfer.engine.queue.size", queues,
+                        q -> q.stream().mapToInt(BlockingQueue::size).sum())
+                .register(meterRegistry);
+        writers.forEach(Thread::start);
+        log.info("Transfer engine: {} partitions, batch size {}, queue capacity {}",
+                partitions, batchSize, queueCapacity);
+    }
+
+    @Override
+    public CompletableFuture<Void> submit(TransferRequest request, String currentUserId) {
+        Money amount = Amounts.transferAmount(request.getAmount());
+        // По id карты списания выбирается партиция, поэтому пустой id отклоняется до шардирования
+        if (request.getFromCardId() == null || request.getToCardId() == null) {
+            throw new BusinessException(ErrorCode.CARD_NOT_FOUND,
+                    request.getFromCardId() == null ? request.getFromCardId() : request.getToCardId());
+        }
+        // Списание с горячей карты может потребовать остатки из слотов, это умеет только синхронный перевод
+        if (hotCardRegistry.slotsOf(request.getFromCardId()) > 0) {
+            cardService.transfer(request, currentUserId);
+            return CompletableFuture.completedFuture(null);
+        }
+        PendingTransfer transfer = new PendingTransfer(request.getFromCardId(), request.getToCardId(), amount,
+                currentUserId, System.nanoTime() + timeoutNanos, new CompletableFuture<>());
+        BlockingQueue<PendingTransfer> queue = queues.get(Math.floorMod(transfer.fromCardId().hashCode(), queues.size()));
+        if (!running || !queue.offer(transfer)) {
+            rejected.increment();
+            throw new BusinessException(ErrorCode.TRANSFER_ENGINE_OVERLOADED);
+        }
+        return transfer.result();
+    }
+
+    // Остановка дожидается записи уже принятых переводов, новые получают 503
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        for (Thread writer : writers) {
+            writer.join(SHUTDOWN_TIMEOUT_MILLIS);
+        }
+        List<PendingTransfer> abandoned = new ArrayList<>();
+        queues.forEach(queue -> queue.drainTo(abandoned));
+        abandoned.forEach(transfer -> transfer.result()
+                .completeExceptionally(new BusinessException(ErrorCode.TRANSFER_ENGINE_OVERLOADED)));
+    }
+
+    private void runPartition(BlockingQueue<PendingTransfer> queue) {
+        List<PendingTransfer> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingTransfer first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                // Пачка набирается, пока предыдущий COMMIT ждет диск, искусственной задержки нет
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                commit(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                log.error("Transfer partition {} failed", Thread.currentThread().getName(), ex);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingTransfer> batch) {
+        dropExpired(batch);
+        if (batch.isEmpty()) {
+            return;
+        }
+        batchSizes.record(batch.size());
+        boolean[] retrySync = new boolean[batch.size()];
+        List<BusinessException> outcomes;
+        try {
+            outcomes = commitTimer.record(() -> transactionTemplate.execute(status -> applyBatch(batch, retrySync)));
+        } catch (RuntimeException ex) {
+            log.error("Transfer batch of {} rolled back", batch.size(), ex);
+            batch.forEach(transfer -> transfer.result().completeExceptionally(ex));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            if (outcomes.get(i) == null) {
+                batch.get(i).result().complete(null);
+            } else if (retrySync[i]) {
+                transferSync(batch.get(i));
+            } else {
+                batch.get(i).result().completeExceptionally(outcomes.get(i));
+            }
+        }
+    }
+
+    // Перевод, прождавший в очереди дольше cards.transfer.timeout-seconds, не выполняется: иначе он мог бы
+    // пережить pending-ttl ключа идемпотентности, и повтор клиента списал бы деньги второй раз
+    private void dropExpired(List<PendingTransfer> batch) {
+        long now = System.nanoTime();
+        batch.removeIf(transfer -> {
+            if (now - transfer.deadline() < 0) {
+                return false;
+            }
+            rejected.increment();
+            transfer.result().completeExceptionally(new BusinessException(ErrorCode.TRANSFER_ENGINE_OVERLOADED));
+            return true;
+        });
+    }
+
+    // Карта списания стала горячей, а HotCardRegistry узла еще не обновился: перевод повторяется синхронно,
+    // он заберет остатки из слотов после COMMIT пачки
+    private void transferSync(PendingTransfer transfer) {
+        try {
+            cardService.transfer(TransferRequest.builder()
+                    .fromCardId(transfer.fromCardId())
+                    .toCardId(transfer.toCardId())
+                    .amount(transfer.amount().toBigDecimal())
+                    .build(), transfer.userId());
+            transfer.result().complete(null);
+        } catch (RuntimeException ex) {
+            transfer.result().completeExceptionally(ex);
+        }
+    }
+
+    private List<BusinessException> applyBatch(List<PendingTransfer> batch, boolean[] retrySync) {
+        List<String> cardIds = new ArrayList<>();
+        batch.forEach(transfer -> {
+            cardIds.add(transfer.fromCardId());
+            cardIds.add(transfer.toCardId());
+        });
+        TransferLedger ledger = TransferLedger.lock(jdbcTemplate, cardIds);
+        List<BusinessException> outcomes = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            PendingTransfer transfer = batch.get(i);
+            BusinessException rejection = ledger.apply(
+                    transfer.fromCardId(), transfer.toCardId(), transfer.amount(), transfer.userId());
+            if (ledger.insufficientFundsInSlots(transfer.fromCardId(), rejection)) {
+                hotCardRegistry.put(transfer.fromCardId(), ledger.balanceSlots(transfer.fromCardId()));
+                retrySync[i] = true;
+            }
+            outcomes.add(rejection);
+        }
+        ledger.write(jdbcTemplate, cardTransactionRepository);
+        return outcomes;
+    }
+
+    private record PendingTransfer(String fromCardId, String toCardId, Money amount, String userId, long deadline,
+                           CompletableFuture<Void> result) {
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.testtaskeffectivemobile.service;
+
+import com.example.testtaskeffectivemobile.dto.request.TransferBatchRequest;
+import com.example.testtaskeffectivemobile.dto.response.TransferBatchResponse;
+
+public interface TransferBatchService {
+    TransferBatchResponse transfer(TransferBatchRequest request, String currentUserId);
+}
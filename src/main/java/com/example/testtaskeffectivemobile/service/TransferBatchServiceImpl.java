@@ -0,0 +1,163 @@
+package com.example.testtaskeffectivemobile.service;
+
+import com.example.testtaskeffectivemobile.dto.request.TransferBatchMode;
+import com.example.testtaskeffectivemobile.dto.request.TransferBatchRequest;
+import com.example.testtaskeffectivemobile.dto.request.TransferRequest;
+import com.example.testtaskeffectivemobile.dto.response.TransferBatchResponse;
+import com.example.testtaskeffectivemobile.dto.response.TransferResult;
+import com.example.testtaskeffectivemobile.dto.response.TransferResultStatus;
+import com.example.testtaskeffectivemobile.exception.BusinessException;
+import com.example.testtaskeffectivemobile.exception.ErrorCode;
+import com.example.testtaskeffectivemobile.repository.CardRepository;
+import com.example.testtaskeffectivemobile.repository.CardTransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+// Пакет переводов в одной транзакции: карты всех переводов блокируются одним SELECT ... FOR UPDATE,
+// переводы проверяются и применяются в памяти по порядку, изменения пишутся одним batch UPDATE - строка на карту
+@Service
+@Slf4j
+public class TransferBatchServiceImpl implements TransferBatchService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CardRepository cardRepository;
+    private final CardTransactionRepository cardTransactionRepository;
+    private final HotCardRegistry hotCardRegistry;
+    private final int maxSize;
+
+    public TransferBatchServiceImpl(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            CardRepository cardRepository,
+            CardTransactionRepository cardTransactionRepository,
+            HotCardRegistry hotCardRegistry,
+            @Value("${cards.transfer.batch.max-size:1000}") int maxSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cardRepository = cardRepository;
+        this.cardTransactionRepository = cardTransactionRepository;
+        this.hotCardRegistry = hotCardRegistry;
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public TransferBatchResponse transfer(TransferBatchRequest request, String currentUserId) {
+        List<TransferRequest> transfers = request.getTransfers();
+        if (transfers == null || transfers.isEmpty() || transfers.size() > maxSize) {
+            throw new BusinessException(ErrorCode.INVALID_TRANSFER_BATCH, maxSize);
+        }
+        for (int i = 0; i < transfers.size(); i++) {
+            if (transfers.get(i) == null) {
+                throw new BusinessException(ErrorCode.INVALID_TRANSFER_BATCH_ITEM, i);
+            }
+        }
+        TransferBatchMode mode = request.getMode() != null ? request.getMode() : TransferBatchMode.ALL_OR_NOTHING;
+        sweepHotCards(transfers);
+        TransferBatchResponse response;
+        try {
+            response = transactionTemplate.execute(status -> apply(transfers, mode, currentUserId, true));
+        } catch (UnsweptHotCards ex) {
+            // HotCardRegistry узла устарел: пачка откатывается, слоты сводятся, и пачка выполняется еще раз
+            ex.balanceSlots.forEach(hotCardRegistry::put);
+            ex.balanceSlots.keySet().stream().sorted().forEach(cardRepository::sweepBalanceSlots);
+            response = transactionTemplate.execute(status -> apply(transfers, mode, currentUserId, false));
+        }
+        log.info("Transfer batch of {} by user {} ({}): {} applied, {} rejected",
+                transfers.size(), currentUserId, mode, response.getApplied(), response.getRejected());
+        return response;
+    }
+
+    private TransferBatchResponse apply(
+            List<TransferRequest> transfers, TransferBatchMode mode, String userId, boolean retryUnswept) {
+        List<String> cardIds = new ArrayList<>();
+        transfers.forEach(transfer -> {
+            cardIds.add(transfer.getFromCardId());
+            cardIds.add(transfer.getToCardId());
+        });
+        TransferLedger ledger = TransferLedger.lock(jdbcTemplate, cardIds);
+
+        List<BusinessException> outcomes = new ArrayList<>(transfers.size());
+        Map<String, Integer> unswept = new TreeMap<>();
+        for (TransferRequest transfer : transfers) {
+            BusinessException rejection = apply(ledger, transfer, userId);
+            if (ledger.insufficientFundsInSlots(transfer.getFromCardId(), rejection)
+                    && hotCardRegistry.slotsOf(transfer.getFromCardId()) == 0) {
+                unswept.put(transfer.getFromCardId(), ledger.balanceSlots(transfer.getFromCardId()));
+            }
+            outcomes.add(rejection);
+        }
+        if (retryUnswept && !unswept.isEmpty()) {
+            throw new UnsweptHotCards(unswept);
+        }
+        int rejected = (int) outcomes.stream().filter(Objects::nonNull).count();
+        boolean commit = mode == TransferBatchMode.BEST_EFFORT || rejected == 0;
+        if (commit) {
+            ledger.write(jdbcTemplate, cardTransactionRepository);
+        }
+
+        List<TransferResult> results = new ArrayList<>(transfers.size());
+        for (int i = 0; i < outcomes.size(); i++) {
+            BusinessException rejection = outcomes.get(i);
+            results.add(rejection == null
+                    ? TransferResult.builder()
+                            .index(i)
+                            .status(commit ? TransferResultStatus.APPLIED : TransferResultStatus.ROLLED_BACK)
+                            .build()
+                    : TransferResult.builder()
+                            .index(i)
+                            .status(TransferResultStatus.REJECTED)
+                            .errorCode(rejection.getErrorCode().getCode())
+                            .message(rejection.getMessage())
+                            .build());
+        }
+        return TransferBatchResponse.builder()
+                .mode(mode)
+                .applied(commit ? transfers.size() - rejected : 0)
+                .rejected(rejected)
+                .results(results)
+                .build();
+    }
+
+    private static BusinessException apply(TransferLedger ledger, TransferRequest transfer, String userId) {
+        try {
+            return ledger.apply(transfer.getFromCardId(), transfer.getToCardId(),
+                    Amounts.transferAmount(transfer.getAmount()), userId);
+        } catch (BusinessException ex) {
+            return ex;
+        }
+    }
+
+    // Отказы по остатку у карт, которых нет в HotCardRegistry, хотя в БД у них есть слоты - их слоты не сведены
+    private static final class UnsweptHotCards extends RuntimeException {
+        private final Map<String, Integer> balanceSlots;
+
+        private UnsweptHotCards(Map<String, Integer> balanceSlots) {
+            super(null, null, false, false);
+            this.balanceSlots = balanceSlots;
+        }
+    }
+
+    // Остатки слотов горячих карт списания переносятся в основной баланс до блокировки, каждая карта
+    // в своей короткой транзакции: внутри пакета слоты после строк карт брать нельзя, это нарушило бы порядок блокировок
+    private void sweepHotCards(List<TransferRequest> transfers) {
+        transfers.stream()
+                .map(TransferRequest::getFromCardId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .filter(cardId -> hotCardRegistry.slotsOf(cardId) > 0)
+                .sorted()
+                .forEach(cardRepository::sweepBalanceSlots);
+    }
+}
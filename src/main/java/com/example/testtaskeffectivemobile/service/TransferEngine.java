@@ -0,0 +1,9 @@
+package com.example.testtaskeffectivemobile.service;
+
+import com.example.testtaskeffectivemobile.dto.request.TransferRequest;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface TransferEngine {
+    CompletableFuture<Void> submit(TransferRequest request, String currentUserId);
+}
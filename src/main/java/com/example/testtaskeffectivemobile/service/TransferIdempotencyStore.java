@@ -0,0 +1,187 @@
+package com.example.testtaskeffectivemobile.service;
+
+import com.example.testtaskeffectivemobile.dto.request.TransferRequest;
+import com.example.testtaskeffectivemobile.exception.BusinessException;
+import com.example.testtaskeffectivemobile.exception.ErrorCode;
+import com.example.testtaskeffectivemobile.util.BoundedCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Исход перевода по ключу Idempotency-Key: ключ занимается в Redis через SET NX до выполнения перевода,
+// после него там хранится результат (OK или код BusinessException). Повтор получает сохраненный результат,
+// не обращаясь к PostgreSQL; готовые результаты дополнительно кэшируются в памяти узла
+@Component
+@Slf4j
+public class TransferIdempotencyStore implements MeterBinder {
+
+    private static final String KEY_PREFIX = "transfer_idempotency:";
+    private static final String PENDING = "PENDING";
+    private static final String SUCCESS = "OK";
+    private static final int MAX_KEY_LENGTH = 128;
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ttl;
+    private final Duration pendingTtl;
+    private final long localTtlMillis;
+    private final BoundedCache<String, String> local;
+    private final LongAdder localReplays = new LongAdder();
+    private final LongAdder redisReplays = new LongAdder();
+
+    public TransferIdempotencyStore(
+            StringRedisTemplate redisTemplate,
+            @Value("${cards.transfer.idempotency.ttl:86400000}") long ttlMillis,
+            @Value("${cards.transfer.idempotency.pending-ttl:120000}") long pendingTtlMillis,
+            @Value("${cards.transfer.idempotency.local-ttl:300000}") long localTtlMillis,
+            @Value("${cards.transfer.idempotency.local-max-size:10000}") int localMaxSize,
+            @Value("${cards.transfer.timeout-seconds:10}") int transferTimeoutSeconds,
+            @Value("${spring.datasource.hikari.connection-timeout:30000}") long connectionTimeoutMillis
+    ) {
+        long maxTransferMillis = maxTransferMillis(transferTimeoutSeconds, connectionTimeoutMillis);
+        if (pendingTtlMillis <= maxTransferMillis) {
+            throw new IllegalStateException("cards.transfer.idempotency.pending-ttl (" + pendingTtlMillis
+                    + " ms) must exceed the longest transfer path (" + maxTransferMillis + " ms), "
+                    + "otherwise a retry may repeat a transfer that is still running");
+        }
+        this.redisTemplate = redisTemplate;
+        this.ttl = Duration.ofMillis(ttlMillis);
+        this.pendingTtl = Duration.ofMillis(pendingTtlMillis);
+        this.localTtlMillis = Math.min(localTtlMillis, ttlMillis);
+        this.local = new BoundedCache<>(localMaxSize);
+    }
+
+    // Самый длинный путь - перевод через движок: ожидание в очереди (до timeout), транзакция пачки и синхронный
+    // повтор после нее (каждая до connection-timeout пула и timeout транзакции), еще один timeout - запас на COMMIT
+    // и запись исхода в Redis. Таймаут транзакции Spring передает в JDBC как query timeout каждого запроса
+    static long maxTransferMillis(int transferTimeoutSeconds, long connectionTimeoutMillis) {
+        long timeoutMillis = Duration.ofSeconds(transferTimeoutSeconds).toMillis();
+        return 4 * timeoutMillis + 2 * connectionTimeoutMillis;
+    }
+
+    public CompletableFuture<Void> execute(
+            String userId,
+            String idempotencyKey,
+            TransferRequest request,
+            Supplier<CompletableFuture<Void>> transfer
+    ) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BusinessException(ErrorCode.INVALID_IDEMPOTENCY_KEY, MAX_KEY_LENGTH);
+        }
+        String key = KEY_PREFIX + userId + ":" + idempotencyKey;
+        String fingerprint = fingerprint(request);
+
+        String cached = local.get(key, System.currentTimeMillis());
+        if (cached != null) {
+            localReplays.increment();
+            return replay(cached, fingerprint);
+        }
+
+        // Ключ занимается до перевода, поэтому параллельный повтор не выполнит перевод второй раз
+        if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, encode(PENDING, fingerprint), pendingTtl))) {
+            String stored = redisTemplate.opsForValue().get(key);
+            if (stored == null) {
+                // Ключ истек между SET NX и GET - клиент повторит запрос
+                throw new BusinessException(ErrorCode.IDEMPOTENCY_KEY_IN_PROGRESS);
+            }
+            if (stored.startsWith(PENDING + "|")) {
+                checkFingerprint(stored, fingerprint);
+                throw new BusinessException(ErrorCode.IDEMPOTENCY_KEY_IN_PROGRESS);
+            }
+            redisReplays.increment();
+            cacheLocally(key, stored);
+            return replay(stored, fingerprint);
+        }
+
+        CompletableFuture<Void> result;
+        try {
+            result = transfer.get();
+        } catch (RuntimeException ex) {
+            result = CompletableFuture.failedFuture(ex);
+        }
+        return result.whenComplete((ignored, failure) -> complete(key, fingerprint, unwrap(failure)));
+    }
+
+    // Исход по бизнес-правилу окончательный и сохраняется, прочие ошибки освобождают ключ для повтора
+    private void complete(String key, String fingerprint, Throwable failure) {
+        try {
+            if (failure == null) {
+                store(key, encode(SUCCESS, fingerprint));
+            } else if (failure instanceof BusinessException ex && ex.getErrorCode() != ErrorCode.TRANSFER_ENGINE_OVERLOADED) {
+                store(key, encode(ex.getErrorCode().name(), fingerprint));
+            } else {
+                redisTemplate.delete(key);
+            }
+        } catch (RuntimeException ex) {
+            log.error("Failed to record outcome of idempotent transfer {}", key, ex);
+        }
+    }
+
+    private void store(String key, String value) {
+        redisTemplate.opsForValue().set(key, value, ttl);
+        cacheLocally(key, value);
+    }
+
+    private void cacheLocally(String key, String value) {
+        local.put(key, value, System.currentTimeMillis() + localTtlMillis);
+    }
+
+    private static CompletableFuture<Void> replay(String stored, String fingerprint) {
+        checkFingerprint(stored, fingerprint);
+        String status = stored.substring(0, stored.indexOf('|'));
+        if (SUCCESS.equals(status)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        throw new BusinessException(ErrorCode.valueOf(status));
+    }
+
+    // Тот же ключ с другими параметрами перевода - ошибка клиента, а не повтор
+    private static void checkFingerprint(String stored, String fingerprint) {
+        if (!stored.substring(stored.indexOf('|') + 1).equals(fingerprint)) {
+            throw new BusinessException(ErrorCode.IDEMPOTENCY_KEY_REUSED);
+        }
+    }
+
+    private static String fingerprint(TransferRequest request) {
+        BigDecimal amount = request.getAmount();
+        return request.getFromCardId() + ">" + request.getToCardId() + ":"
+                + (amount != null ? amount.stripTrailingZeros().toPlainString() : null);
+    }
+
+    private static String encode(String status, String fingerprint) {
+        return status + "|" + fingerprint;
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+
+    public long localReplayCount() {
+        return localReplays.sum();
+    }
+
+    public long redisReplayCount() {
+        return redisReplays.sum();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        FunctionCounter.builder("cards.transfer.idempotency.replays", this, TransferIdempotencyStore::localReplayCount)
+                .tag("source", "local")
+                .register(registry);
+        FunctionCounter.builder("cards.transfer.idempotency.replays", this, TransferIdempotencyStore::redisReplayCount)
+                .tag("source", "redis")
+                .register(registry);
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.testtaskeffectivemobile.service;
+
+import com.example.testtaskeffectivemobile.entity.CardStatus;
+import com.example.testtaskeffectivemobile.entity.Money;
+import com.example.testtaskeffectivemobile.exception.BusinessException;
+import com.example.testtaskeffectivemobile.exception.ErrorCode;
+import com.example.testtaskeffectivemobile.repository.CardTransactionRepository;
+import com.example.testtaskeffectivemobile.repository.CardTransfer;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+// Балансы заблокированных карт в памяти: переводы применяются по очереди, а в БД одним batch UPDATE
+// пишется итоговое изменение по каждой карте, сколько бы переводов ее ни затронуло
+final class TransferLedger {
+
+    private static final String APPLY_DELTA = """
+            UPDATE cards SET balance = balance + ?, last_modified_date = ?, last_modified_by = ?
+            WHERE id = ?""";
+
+    private final Map<String, CardBalance> cards = new TreeMap<>();
+    private final List<CardTransfer> applied = new ArrayList<>();
+
+    // Все писатели блокируют строки карт в порядке id, поэтому пересекающиеся транзакции не дают взаимоблокировок
+    static TransferLedger lock(JdbcTemplate jdbcTemplate, Collection<String> cardIds) {
+        TreeSet<String> ids = cardIds.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(TreeSet::new));
+        TransferLedger ledger = new TransferLedger();
+        if (ids.isEmpty()) {
+            return ledger;
+        }
+        String sql = "SELECT id, user_id, status, balance, balance_slots FROM cards WHERE id IN ("
+                + String.join(", ", Collections.nCopies(ids.size(), "?")) + ") ORDER BY id FOR UPDATE";
+        jdbcTemplate.query(sql, rs -> {
+            ledger.add(rs.getString("id"), rs.getString("user_id"),
+                    CardStatus.valueOf(rs.getString("status")), rs.getBigDecimal("balance"), rs.getInt("balance_slots"));
+        }, ids.toArray());
+        return ledger;
+    }
+
+    void add(String cardId, String userId, CardStatus status, BigDecimal balance, int balanceSlots) {
+        cards.put(cardId, new CardBalance(userId, status, Money.of(balance), balanceSlots));
+    }
+
+    // null - перевод применен к балансам в памяти, иначе причина отказа, балансы не меняются
+    BusinessException apply(String fromCardId, String toCardId, Money amount, String userId) {
+        if (!amount.isPositive()) {
+            return new BusinessException(ErrorCode.INVALID_AMOUNT);
+        }
+        CardBalance from = fromCardId != null ? cards.get(fromCardId) : null;
+        if (from == null) {
+            return new BusinessException(ErrorCode.CARD_NOT_FOUND, fromCardId);
+        }
+        CardBalance to = toCardId != null ? cards.get(toCardId) : null;
+        if (to == null) {
+            return new BusinessException(ErrorCode.CARD_NOT_FOUND, toCardId);
+        }
+        if (!from.userId.equals(userId) || !to.userId.equals(userId)) {
+            return new BusinessException(ErrorCode.ACCESS_DENIED);
+        }
+        if (from.status != CardStatus.ACTIVE || to.status != CardStatus.ACTIVE) {
+            return new BusinessException(ErrorCode.CARD_NOT_ACTIVE);
+        }
+        if (from.balance.isLessThan(amount)) {
+            return new BusinessException(ErrorCode.INSUFFICIENT_FUNDS);
+        }
+        from.balance = from.balance.minus(amount);
+        to.balance = to.balance.plus(amount);
+        applied.add(new CardTransfer(fromCardId, toCardId, amount, userId));
+        return null;
+    }
+
+    // Отказ по остатку у горячей карты не окончательный: часть ее средств может лежать в слотах,
+    // которые внутри пачки брать нельзя - слоты блокируются только сразу после строки своей карты
+    boolean insufficientFundsInSlots(String cardId, BusinessException rejection) {
+        CardBalance card = cardId != null ? cards.get(cardId) : null;
+        return rejection != null && rejection.getErrorCode() == ErrorCode.INSUFFICIENT_FUNDS
+                && card != null && card.balanceSlots > 0;
+    }
+
+    int balanceSlots(String cardId) {
+        return cards.get(cardId).balanceSlots;
+    }
+
+    Money balance(String cardId) {
+        return cards.get(cardId).balance;
+    }
+
+    Money delta(String cardId) {
+        CardBalance card = cards.get(cardId);
+        return card.balance.minus(card.initialBalance);
+    }
+
+    // Возвращает число обновленных карт; карты с нулевым итогом не пишутся, а в журнал попадает каждый перевод
+    int write(JdbcTemplate jdbcTemplate, CardTransactionRepository cardTransactionRepository) {
+        cardTransactionRepository.insertAll(applied);
+        List<String> changed = cards.keySet().stream()
+                .filter(cardId -> delta(cardId).signum() != 0)
+                .toList();
+        if (changed.isEmpty()) {
+            return 0;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(APPLY_DELTA, changed, changed.size(), (ps, cardId) -> {
+            ps.setBigDecimal(1, delta(cardId).toBigDecimal());
+            ps.setTimestamp(2, now);
+            ps.setString(3, cards.get(cardId).userId);
+            ps.setString(4, cardId);
+        });
+        return changed.size();
+    }
+
+    private static final class CardBalance {
+        private final String userId;
+        private final CardStatus status;
+        private final Money initialBalance;
+        private final int balanceSlots;
+        private Money balance;
+
+        private CardBalance(String userId, CardStatus status, Money balance, int balanceSlots) {
+            this.userId = userId;
+            this.status = status;
+            this.initialBalance = balance;
+            this.balanceSlots = balanceSlots;
+            this.balance = balance;
+        }
+    }
+}
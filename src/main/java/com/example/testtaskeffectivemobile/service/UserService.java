@@ -3,11 +3,12 @@ package com.example.testtaskeffectivemobile.service;
 import com.example.testtaskeffectivemobile.dto.request.ChangePasswordRequest;
 import com.example.testtaskeffectivemobile.dto.request.ProfileUpdateRequest;
 import com.example.testtaskeffectivemobile.dto.response.UserResponse;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 
 import java.util.List;
 
-public interface UserService extends UserDetailsService {
+public interface UserService extends UserDetailsService, UserDetailsPasswordService {
 
     void updateProfileInfo(ProfileUpdateRequest request, String userId);
 
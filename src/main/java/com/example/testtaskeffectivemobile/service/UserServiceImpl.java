@@ -8,6 +8,7 @@ import com.example.testtaskeffectivemobile.exception.BusinessException;
 import com.example.testtaskeffectivemobile.exception.ErrorCode;
 import com.example.testtaskeffectivemobile.mapper.UserMapper;
 import com.example.testtaskeffectivemobile.repository.UserRepository;
+import com.example.testtaskeffectivemobile.security.TokenEpochService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -25,6 +26,7 @@ public class UserServiceImpl implements UserService{
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final UserMapper userMapper;
+    private final TokenEpochService tokenEpochService;
 
     @Override
     public void updateProfileInfo(ProfileUpdateRequest request, String userId) {
@@ -47,6 +49,7 @@ public class UserServiceImpl implements UserService{
         final String encodedPassword = passwordEncoder.encode(request.getNewPassword());
         user.setPassword(encodedPassword);
         userRepository.save(user);
+        tokenEpochService.bump(user.getUsername());
     }
 
     @Override
@@ -58,6 +61,7 @@ public class UserServiceImpl implements UserService{
         }
         user.setEnabled(false);
         userRepository.save(user);
+        tokenEpochService.bump(user.getUsername());
     }
 
     @Override
@@ -79,6 +83,17 @@ public class UserServiceImpl implements UserService{
                         ("User with email "+ email +" not found"));
     }
 
+    // Вызывается DaoAuthenticationProvider после успешного логина, если хеш устарел (PasswordEncoder.upgradeEncoding).
+    // Пароль не меняется, поэтому поколение токенов не увеличивается
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        final User user = (User) userDetails;
+        userRepository.updatePassword(user.getId(), newPassword);
+        user.setPassword(newPassword);
+        log.debug("Password hash of user {} upgraded", user.getId());
+        return user;
+    }
+
     @Override
     public List<UserResponse> getActiveUsers() {
         List<User> users = userRepository.findAll();
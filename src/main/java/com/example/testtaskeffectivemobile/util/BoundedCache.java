@@ -0,0 +1,107 @@
+package com.example.testtaskeffectivemobile.util;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Кэш с ограниченным размером и сроком жизни записей. При переполнении вытесняются самые старые вставки
+// по очереди записей, поэтому вставка стоит O(1) и не обходит всю карту даже на пределе размера.
+// Истекшие записи удаляются при чтении или вытесняются в общем порядке. Размер 0 отключает кэш
+public final class BoundedCache<K, V> {
+
+    private final Map<K, Entry<K, V>> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry<K, V>> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final int maxSize;
+
+    public BoundedCache(final int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Cache max size must not be negative: " + maxSize);
+        }
+        this.maxSize = maxSize;
+    }
+
+    public V get(final K key, final long now) {
+        final Entry<K, V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt > now) {
+            return entry.value;
+        }
+        entries.remove(key, entry);
+        return null;
+    }
+
+    public void put(final K key, final V value, final long expiresAt) {
+        if (maxSize == 0) {
+            return;
+        }
+        final Entry<K, V> entry = new Entry<>(key, value, expiresAt);
+        entries.put(key, entry);
+        insertionOrder.add(entry);
+        queued.incrementAndGet();
+        evict();
+    }
+
+    public void remove(final K key) {
+        entries.remove(key);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // В очереди лежат сами записи: запись, замененная новой вставкой или удаленная, остается в очереди
+    // устаревшей и при вытеснении не трогает текущую запись того же ключа
+    private void evict() {
+        while (entries.size() > maxSize) {
+            final Entry<K, V> oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            queued.decrementAndGet();
+            entries.remove(oldest.key, oldest);
+        }
+        if (queued.get() > 2 * maxSize) {
+            compact();
+        }
+    }
+
+    // Частые remove и замены копят устаревшие записи в очереди. Они выбрасываются одним проходом с сохранением
+    // порядка живых записей; после прохода в очереди не больше maxSize записей, поэтому проход редкий
+    private void compact() {
+        synchronized (insertionOrder) {
+            if (queued.get() <= 2 * maxSize) {
+                return;
+            }
+            insertionOrder.removeIf(entry -> {
+                if (entries.get(entry.key) == entry) {
+                    return false;
+                }
+                queued.decrementAndGet();
+                return true;
+            });
+        }
+    }
+
+    // Сравнение по ссылке: equals не переопределен намеренно
+    private static final class Entry<K, V> {
+
+        private final K key;
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(final K key, final V value, final long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -2,14 +2,20 @@ package com.example.testtaskeffectivemobile.util;
 
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.KeyFactory;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.security.spec.InvalidKeySpecException;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
 import java.util.Base64;
 
 public class KeyUtils {
+
+    private static final String[] KEY_ALGORITHMS = {"RSA", "EC", "Ed25519"};
+
     private KeyUtils() {
     }
 
@@ -19,7 +25,14 @@ public class KeyUtils {
                 .replaceAll("\\s+", "");
         final byte[] decoded = Base64.getDecoder().decode(key);
         final PKCS8EncodedKeySpec keySpec = new PKCS8EncodedKeySpec(decoded);
-        return KeyFactory.getInstance("RSA").generatePrivate(keySpec);
+        for (final String algorithm : KEY_ALGORITHMS) {
+            try {
+                return KeyFactory.getInstance(algorithm).generatePrivate(keySpec);
+            } catch (final InvalidKeySpecException ignored) {
+                // ключ другого типа, пробуем следующий алгоритм
+            }
+        }
+        throw new InvalidKeySpecException("Unsupported private key: " + pemPath);
     }
 
     public static PublicKey loadPublicKey(final String pemPath) throws Exception {
@@ -28,13 +41,25 @@ public class KeyUtils {
                 .replaceAll("\\s+", "");
         final byte[] decoded = Base64.getDecoder().decode(key);
         final X509EncodedKeySpec keySpec = new X509EncodedKeySpec(decoded);
-        return KeyFactory.getInstance("RSA").generatePublic(keySpec);
+        for (final String algorithm : KEY_ALGORITHMS) {
+            try {
+                return KeyFactory.getInstance(algorithm).generatePublic(keySpec);
+            } catch (final InvalidKeySpecException ignored) {
+                // ключ другого типа, пробуем следующий алгоритм
+            }
+        }
+        throw new InvalidKeySpecException("Unsupported public key: " + pemPath);
     }
 
     private static String readKeyFromResource(String pemPath) throws Exception {
         String resourcePath = pemPath;
         if (pemPath.startsWith("classpath:")) {
             resourcePath = pemPath.substring(10);
+        } else {
+            final Path filePath = Path.of(pemPath.startsWith("file:") ? pemPath.substring(5) : pemPath);
+            if (Files.isRegularFile(filePath)) {
+                return Files.readString(filePath, StandardCharsets.UTF_8);
+            }
         }
         try (InputStream is = KeyUtils.class.getClassLoader().getResourceAsStream(resourcePath)) {
             if (is == null) {
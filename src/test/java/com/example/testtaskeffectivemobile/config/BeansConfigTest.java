@@ -0,0 +1,46 @@
+package com.example.testtaskeffectivemobile.config;
+
+import com.example.testtaskeffectivemobile.security.PasswordHashingExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BeansConfigTest {
+
+    private final PasswordHashingExecutor executor = new PasswordHashingExecutor(1, 4, 5000, new SimpleMeterRegistry());
+    private final PasswordEncoder passwordEncoder = new BeansConfig().passwordEncoder(executor, 5, 250, 4, 14);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void passwordEncoder_NewHash_PrefixedAndCurrent() {
+        String hash = passwordEncoder.encode("password");
+
+        assertTrue(hash.startsWith("{bcrypt}$2a$05$"));
+        assertTrue(passwordEncoder.matches("password", hash));
+        assertFalse(passwordEncoder.upgradeEncoding(hash));
+    }
+
+    @Test
+    void passwordEncoder_LegacyHashWithoutPrefix_MatchesAndNeedsUpgrade() {
+        String legacyHash = new BCryptPasswordEncoder(4).encode("password");
+
+        assertTrue(passwordEncoder.matches("password", legacyHash));
+        assertTrue(passwordEncoder.upgradeEncoding(legacyHash));
+    }
+
+    @Test
+    void passwordEncoder_WeakerPrefixedHash_NeedsUpgrade() {
+        String weakHash = "{bcrypt}" + new BCryptPasswordEncoder(4).encode("password");
+
+        assertTrue(passwordEncoder.matches("password", weakHash));
+        assertTrue(passwordEncoder.upgradeEncoding(weakHash));
+    }
+}
@@ -1,9 +1,22 @@
 package com.example.testtaskeffectivemobile.controller;
 
 import com.example.testtaskeffectivemobile.dto.request.CardCreateRequest;
+import com.example.testtaskeffectivemobile.dto.request.CardExportFormat;
+import com.example.testtaskeffectivemobile.dto.request.CardSortOrder;
 import com.example.testtaskeffectivemobile.dto.response.CardDTO;
+import com.example.testtaskeffectivemobile.dto.response.CardPageResponse;
 import com.example.testtaskeffectivemobile.entity.CardStatus;
+import com.example.testtaskeffectivemobile.entity.User;
+import com.example.testtaskeffectivemobile.exception.BusinessException;
+import com.example.testtaskeffectivemobile.exception.ErrorCode;
+import com.example.testtaskeffectivemobile.service.CardExportQuery;
+import com.example.testtaskeffectivemobile.service.CardExportService;
+import com.example.testtaskeffectivemobile.service.CardIssueService;
 import com.example.testtaskeffectivemobile.service.CardService;
+import com.example.testtaskeffectivemobile.service.CardTransactionService;
+import com.example.testtaskeffectivemobile.service.TransferBatchService;
+import com.example.testtaskeffectivemobile.service.TransferEngine;
+import com.example.testtaskeffectivemobile.service.TransferIdempotencyStore;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,16 +24,23 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -33,6 +53,24 @@ class CardControllerTest {
     @Mock
     private CardService cardService;
 
+    @Mock
+    private CardExportService cardExportService;
+
+    @Mock
+    private CardIssueService cardIssueService;
+
+    @Mock
+    private CardTransactionService cardTransactionService;
+
+    @Mock
+    private TransferBatchService transferBatchService;
+
+    @Mock
+    private TransferIdempotencyStore transferIdempotencyStore;
+
+    @Mock
+    private ObjectProvider<TransferEngine> transferEngine;
+
     @InjectMocks
     private CardController cardController;
 
@@ -40,7 +78,9 @@ class CardControllerTest {
 
     @BeforeEach
     void setUp() {
-        mockMvc = MockMvcBuilders.standaloneSetup(cardController).build();
+        mockMvc = MockMvcBuilders.standaloneSetup(cardController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
         objectMapper = new ObjectMapper();
     }
 
@@ -81,17 +121,84 @@ class CardControllerTest {
     @Test
     void getAllCards_Success() throws Exception {
         CardDTO cardDTO = createCardDTO();
-        when(cardService.getAllCards(any())).thenReturn(List.of(cardDTO));
+        CardPageResponse page = CardPageResponse.builder()
+                .content(List.of(cardDTO))
+                .nextCursor("cursor")
+                .hasNext(true)
+                .build();
+        when(cardService.getAllCards(any(), any())).thenReturn(page);
 
-        mockMvc.perform(get("/api/v1/cards/admin"))
+        mockMvc.perform(get("/api/v1/cards/admin")
+                        .param("size", "1")
+                        .param("sort", "CREATED_ASC"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].id").value("card123"));
+                .andExpect(jsonPath("$.content[0].id").value("card123"))
+                .andExpect(jsonPath("$.nextCursor").value("cursor"))
+                .andExpect(jsonPath("$.hasNext").value(true));
 
-        verify(cardService).getAllCards(any());
+        verify(cardService).getAllCards(any(), argThat(request ->
+                request.getSize() == 1 && request.getSort() == CardSortOrder.CREATED_ASC));
     }
 
 
 
+    @Test
+    void exportCards_Csv_StreamsAttachment() throws Exception {
+        CardExportQuery query = new CardExportQuery("SELECT", List.of());
+        when(cardExportService.prepare(any())).thenReturn(query);
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(2);
+            out.write("id\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(cardExportService)
+                .export(eq(query), eq(CardExportFormat.CSV), any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/api/v1/cards/admin/export").param("format", "CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"cards.csv\""))
+                .andExpect(content().string("id\n"));
+    }
+
+    @Test
+    void exportCards_InvalidCardNumberFilter_BadRequestBeforeStreaming() throws Exception {
+        when(cardExportService.prepare(any()))
+                .thenThrow(new BusinessException(ErrorCode.INVALID_CARD_NUMBER_FILTER, "12ab"));
+
+        mockMvc.perform(get("/api/v1/cards/admin/export").param("cardNumber", "12ab"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value("INVALID_CARD_NUMBER_FILTER"));
+
+        verify(cardExportService, never()).export(any(), any(), any());
+    }
+
+    @Test
+    void issueCardsCsv_StreamsNdjsonResults() throws Exception {
+        List<CardCreateRequest> requests = List.of(CardCreateRequest.builder().userId("user123").build());
+        when(cardIssueService.readCsv(any())).thenReturn(requests);
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write("{\"index\":0,\"status\":\"ISSUED\"}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(cardIssueService).issue(eq(requests), any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(post("/api/v1/cards/bulk")
+                        .contentType("text/csv")
+                        .content("userId,initialBalance\nuser123,\n"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"index\":0,\"status\":\"ISSUED\"}\n"));
+    }
+
     @Test
     void deleteCard_Success() throws Exception {
         mockMvc.perform(delete("/api/v1/cards/card123"))
@@ -112,4 +219,21 @@ class CardControllerTest {
 
         verify(cardService).getUserCardsByUserId("user123");
     }
-}
\ No newline at end of file
+
+    // Без движка перевод выполняется в потоке запроса, и 204 отдается без асинхронной обработки
+    @Test
+    void transfer_WithoutEngine_NoContentWithoutAsyncDispatch() throws Exception {
+        User user = User.builder().id("user123").build();
+        when(transferEngine.getIfAvailable()).thenReturn(null);
+
+        mockMvc.perform(post("/api/v1/cards/transfer")
+                        .principal(new UsernamePasswordAuthenticationToken(user, null, List.of()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"fromCardId": "a", "toCardId": "b", "amount": 10.00}"""))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isNoContent());
+
+        verify(cardService).transfer(argThat(request -> request.getFromCardId().equals("a")), eq("user123"));
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.testtaskeffectivemobile.dto.request;
+
+import com.example.testtaskeffectivemobile.exception.BusinessException;
+import com.example.testtaskeffectivemobile.exception.ErrorCode;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardNumberSearchModeTest {
+
+    @Test
+    void resolve_ModeNotSet_InferredFromLength() {
+        assertEquals(CardNumberSearchMode.LAST4, CardNumberSearchMode.resolve("5678", null));
+        assertEquals(CardNumberSearchMode.BIN, CardNumberSearchMode.resolve("400012", null));
+        assertEquals(CardNumberSearchMode.EXACT, CardNumberSearchMode.resolve("4000123412341234", null));
+    }
+
+    @Test
+    void resolve_ExplicitMode_Used() {
+        assertEquals(CardNumberSearchMode.BIN, CardNumberSearchMode.resolve("40001234", CardNumberSearchMode.BIN));
+    }
+
+    @Test
+    void resolve_ValueDoesNotFitMode_ThrowsBusinessException() {
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> CardNumberSearchMode.resolve("12345", CardNumberSearchMode.LAST4));
+
+        assertEquals(ErrorCode.INVALID_CARD_NUMBER_FILTER, exception.getErrorCode());
+    }
+
+    @Test
+    void resolve_SubstringSearch_Rejected() {
+        assertThrows(BusinessException.class, () -> CardNumberSearchMode.resolve("12345", null));
+        assertThrows(BusinessException.class, () -> CardNumberSearchMode.resolve("12ab", null));
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.testtaskeffectivemobile.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void of_ScaleUpToTwo_ConvertsExactly() {
+        assertEquals(new Money(1050), Money.of(new BigDecimal("10.5")));
+        assertEquals(new Money(-1), Money.of(new BigDecimal("-0.01")));
+        assertEquals(new BigDecimal("10.50"), new Money(1050).toBigDecimal());
+    }
+
+    @Test
+    void of_FractionalMinorUnits_Rejected() {
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("0.001")));
+    }
+
+    @Test
+    void plus_Overflow_Rejected() {
+        Money max = new Money(Long.MAX_VALUE);
+
+        assertThrows(ArithmeticException.class, () -> max.plus(new Money(1)));
+        assertThrows(ArithmeticException.class, () -> Money.of(max.toBigDecimal().add(BigDecimal.ONE)));
+    }
+
+    @Test
+    void converter_RoundTripsDecimalColumn() {
+        MoneyConverter converter = new MoneyConverter();
+
+        assertEquals(new BigDecimal("1000.00"), converter.convertToDatabaseColumn(new Money(100_000)));
+        assertEquals(new Money(100_000), converter.convertToEntityAttribute(new BigDecimal("1000.00")));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.testtaskeffectivemobile.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BcryptStrengthCalibratorTest {
+
+    @Test
+    void strengthFor_DoublesCostUntilTarget() {
+        assertEquals(12, BcryptStrengthCalibrator.strengthFor(60, 10, 250, 14));
+        assertEquals(13, BcryptStrengthCalibrator.strengthFor(30, 10, 250, 14));
+    }
+
+    @Test
+    void strengthFor_SlowHardware_KeepsMinimum() {
+        assertEquals(10, BcryptStrengthCalibrator.strengthFor(400, 10, 250, 14));
+    }
+
+    @Test
+    void strengthFor_FastHardware_CappedAtMaximum() {
+        assertEquals(14, BcryptStrengthCalibrator.strengthFor(1, 10, 250, 14));
+    }
+}
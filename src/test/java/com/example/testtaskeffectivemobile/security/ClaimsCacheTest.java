@@ -0,0 +1,86 @@
+package com.example.testtaskeffectivemobile.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClaimsCacheTest {
+
+    private ClaimsCache claimsCache;
+    private AtomicInteger verifications;
+
+    @BeforeEach
+    void setUp() {
+        claimsCache = new ClaimsCache(2);
+        verifications = new AtomicInteger();
+    }
+
+    private Function<String, Claims> verifier(long expiresInMillis) {
+        return token -> {
+            verifications.incrementAndGet();
+            return Jwts.claims()
+                    .subject(token)
+                    .expiration(new Date(System.currentTimeMillis() + expiresInMillis))
+                    .build();
+        };
+    }
+
+    @Test
+    void getOrVerify_SameToken_VerifiesOnce() {
+        Claims first = claimsCache.getOrVerify("token", verifier(60_000));
+        Claims second = claimsCache.getOrVerify("token", verifier(60_000));
+
+        assertSame(first, second);
+        assertEquals(1, verifications.get());
+        assertEquals(1, claimsCache.hitCount());
+        assertEquals(1, claimsCache.missCount());
+    }
+
+    @Test
+    void getOrVerify_ExpiredEntry_VerifiesAgain() {
+        claimsCache.getOrVerify("token", verifier(-1));
+        claimsCache.getOrVerify("token", verifier(-1));
+
+        assertEquals(2, verifications.get());
+        assertEquals(0, claimsCache.size());
+    }
+
+    @Test
+    void getOrVerify_CacheFull_DoesNotGrowPastMaxSize() {
+        claimsCache.getOrVerify("token1", verifier(60_000));
+        claimsCache.getOrVerify("token2", verifier(60_000));
+        claimsCache.getOrVerify("token3", verifier(60_000));
+
+        assertEquals(2, claimsCache.size());
+    }
+
+    @Test
+    void getOrVerify_CacheFull_CachesNewTokenByEvictingOldest() {
+        claimsCache.getOrVerify("token1", verifier(60_000));
+        claimsCache.getOrVerify("token2", verifier(60_000));
+        claimsCache.getOrVerify("token3", verifier(60_000));
+
+        // Новый токен попадает в кэш и на пределе размера, вытесняется самый старый
+        claimsCache.getOrVerify("token3", verifier(60_000));
+        assertEquals(3, verifications.get());
+        claimsCache.getOrVerify("token1", verifier(60_000));
+        assertEquals(4, verifications.get());
+    }
+
+    @Test
+    void getOrVerify_VerifierFails_NothingCached() {
+        assertThrows(RuntimeException.class, () -> claimsCache.getOrVerify("bad", token -> {
+            throw new RuntimeException("Invalid JWT token");
+        }));
+
+        assertEquals(0, claimsCache.size());
+        assertEquals(1, claimsCache.missCount());
+    }
+}
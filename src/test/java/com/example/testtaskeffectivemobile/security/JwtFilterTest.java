@@ -0,0 +1,124 @@
+package com.example.testtaskeffectivemobile.security;
+
+import com.example.testtaskeffectivemobile.entity.Role;
+import com.example.testtaskeffectivemobile.entity.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtFilterTest {
+
+    private static final String TOKEN = "token";
+    private static final String EMAIL = "test@example.com";
+
+    @Mock
+    private JwtService jwtService;
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @InjectMocks
+    private JwtFilter jwtFilter;
+
+    private User dbUser;
+    private User claimsUser;
+
+    @BeforeEach
+    void setUp() {
+        dbUser = User.builder()
+                .id("user123")
+                .email(EMAIL)
+                .enabled(true)
+                .roles(List.of(Role.builder().name("ROLE_USER").build()))
+                .build();
+        claimsUser = User.builder()
+                .id("user123")
+                .email(EMAIL)
+                .enabled(true)
+                .roles(List.of(Role.builder().name("ROLE_ADMIN").build()))
+                .build();
+        when(jwtService.extractUserName(TOKEN)).thenReturn(EMAIL);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private Authentication filter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + TOKEN);
+        jwtFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private static List<String> authorities(Authentication authentication) {
+        return authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList();
+    }
+
+    @Test
+    void doFilter_StatelessPrincipalOff_LoadsUserFromDatabase() throws Exception {
+        when(userDetailsService.loadUserByUsername(EMAIL)).thenReturn(dbUser);
+        when(jwtService.validateToken(TOKEN, EMAIL)).thenReturn(true);
+
+        Authentication authentication = filter();
+
+        assertSame(dbUser, authentication.getPrincipal());
+        assertEquals(List.of("ROLE_USER"), authorities(authentication));
+        verify(jwtService, never()).extractPrincipal(anyString());
+    }
+
+    @Test
+    void doFilter_StatelessPrincipalOn_BuildsUserFromClaimsWithoutDatabase() throws Exception {
+        ReflectionTestUtils.setField(jwtFilter, "statelessPrincipal", true);
+        when(jwtService.extractPrincipal(TOKEN)).thenReturn(Optional.of(claimsUser));
+        when(jwtService.validateToken(TOKEN, EMAIL)).thenReturn(true);
+
+        Authentication authentication = filter();
+
+        assertSame(claimsUser, authentication.getPrincipal());
+        assertEquals(List.of("ROLE_ADMIN"), authorities(authentication));
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void doFilter_StatelessPrincipalOnTokenWithoutUserId_FallsBackToDatabase() throws Exception {
+        ReflectionTestUtils.setField(jwtFilter, "statelessPrincipal", true);
+        when(jwtService.extractPrincipal(TOKEN)).thenReturn(Optional.empty());
+        when(userDetailsService.loadUserByUsername(EMAIL)).thenReturn(dbUser);
+        when(jwtService.validateToken(TOKEN, EMAIL)).thenReturn(true);
+
+        assertSame(dbUser, filter().getPrincipal());
+    }
+
+    // Отключение аккаунта сдвигает поколение токенов, поэтому токен отклоняется без чтения пользователя из БД
+    @Test
+    void doFilter_StatelessPrincipalOnDeactivatedUser_NotAuthenticated() throws Exception {
+        ReflectionTestUtils.setField(jwtFilter, "statelessPrincipal", true);
+        when(jwtService.extractPrincipal(TOKEN)).thenReturn(Optional.of(claimsUser));
+        when(jwtService.validateToken(TOKEN, EMAIL)).thenReturn(false);
+
+        assertNull(filter());
+        verifyNoInteractions(userDetailsService);
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.testtaskeffectivemobile.security;
+
+import com.example.testtaskeffectivemobile.entity.Role;
+import com.example.testtaskeffectivemobile.entity.User;
+import com.example.testtaskeffectivemobile.exception.BusinessException;
+import com.example.testtaskeffectivemobile.exception.ErrorCode;
+import com.example.testtaskeffectivemobile.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtServiceTest {
+
+    @Mock
+    private TokenStore tokenStore;
+
+    @Mock
+    private TokenEpochService tokenEpochService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private JwtService jwtService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        ClaimsCache claimsCache = new ClaimsCache(100);
+        SigningKeyRing keyRing = new SigningKeyRing("", "", JwtAlgorithm.EdDSA, claimsCache);
+        jwtService = new JwtService(tokenStore, tokenEpochService, userRepository, claimsCache, keyRing);
+
+        user = User.builder()
+                .id("user123")
+                .email("test@example.com")
+                .enabled(true)
+                .roles(List.of(Role.builder().name("ROLE_USER").build()))
+                .build();
+    }
+
+    @Test
+    void issueTokens_RegistersBothTokensInOneCall() {
+        when(tokenEpochService.currentEpoch("test@example.com")).thenReturn(3L);
+
+        TokenPair tokens = jwtService.issueTokens(user);
+
+        Claims access = jwtService.extractClaims(tokens.accessToken());
+        Claims refresh = jwtService.extractClaims(tokens.refreshToken());
+        assertEquals("ACCESS_TOKEN", access.get("token_type"));
+        assertEquals("user123", access.get("user_id"));
+        assertEquals("REFRESH_TOKEN", refresh.get("token_type"));
+        assertEquals(3L, refresh.get("token_epoch", Number.class).longValue());
+
+        verify(tokenStore).registerTokens(eq(access.getId()), eq(refresh.getId()), eq(refresh.get("token_family", String.class)),
+                eq("test@example.com"), any(Duration.class), any(Duration.class));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void issueTokens_EachLoginOpensOwnFamily() {
+        Claims first = jwtService.extractClaims(jwtService.issueTokens(user).refreshToken());
+        Claims second = jwtService.extractClaims(jwtService.issueTokens(user).refreshToken());
+
+        assertNotNull(first.get("token_family", String.class));
+        assertNotEquals(first.get("token_family"), second.get("token_family"));
+    }
+
+    @Test
+    void validateToken_AccessTokenRemovedFromStore_Rejected() {
+        String accessToken = jwtService.issueTokens(user).accessToken();
+        String jti = jwtService.extractClaims(accessToken).getId();
+        when(tokenStore.isAccessTokenActive(jti)).thenReturn(true, false);
+
+        assertTrue(jwtService.validateToken(accessToken, "test@example.com"));
+        assertFalse(jwtService.validateToken(accessToken, "test@example.com"));
+    }
+
+    @Test
+    void extractPrincipal_AccessToken_BuildsUserFromClaims() {
+        String accessToken = jwtService.issueTokens(user).accessToken();
+
+        User principal = jwtService.extractPrincipal(accessToken).orElseThrow();
+
+        assertEquals("user123", principal.getId());
+        assertEquals("test@example.com", principal.getUsername());
+        assertEquals(List.of("ROLE_USER"), principal.getRoles().stream().map(Role::getName).toList());
+        verifyNoInteractions(userRepository);
+    }
+
+    // Claims не знают о блокировке: отключенный пользователь отсекается сдвигом поколения токенов
+    @Test
+    void validateToken_UserDeactivatedAfterIssue_RejectedByEpoch() {
+        String accessToken = jwtService.issueTokens(user).accessToken();
+        lenient().when(tokenStore.isAccessTokenActive(anyString())).thenReturn(true);
+        when(tokenEpochService.currentEpoch("test@example.com")).thenReturn(1L);
+
+        assertTrue(jwtService.extractPrincipal(accessToken).isPresent());
+        assertFalse(jwtService.validateToken(accessToken, "test@example.com"));
+    }
+
+    private String issuedRefreshToken() {
+        TokenPair tokens = jwtService.issueTokens(user);
+        return tokens.refreshToken();
+    }
+
+    private void rotationReturns(TokenStore.RotationResult result) {
+        when(userRepository.findByEmailIgnoreCase("test@example.com")).thenReturn(Optional.of(user));
+        when(tokenStore.rotateRefreshToken(anyString(), anyString(), anyString(), anyString(), eq("test@example.com"),
+                any(Duration.class), any(Duration.class))).thenReturn(result);
+    }
+
+    @Test
+    void refreshToken_CurrentToken_ReturnsRotatedPair() {
+        String refreshToken = issuedRefreshToken();
+        rotationReturns(TokenStore.RotationResult.ROTATED);
+
+        TokenPair tokens = jwtService.refreshToken(refreshToken);
+
+        assertNotEquals(refreshToken, tokens.refreshToken());
+        Claims oldClaims = jwtService.extractClaims(refreshToken);
+        Claims newClaims = jwtService.extractClaims(tokens.refreshToken());
+        Claims access = jwtService.extractClaims(tokens.accessToken());
+        assertEquals(oldClaims.get("token_family"), newClaims.get("token_family"));
+        verify(tokenStore).rotateRefreshToken(eq(oldClaims.getId()), eq(newClaims.getId()), eq(access.getId()),
+                eq(oldClaims.get("token_family", String.class)), eq("test@example.com"),
+                any(Duration.class), any(Duration.class));
+        verify(tokenEpochService, never()).bump(anyString());
+    }
+
+    @Test
+    void refreshToken_ReusedToken_RevokesAllSessions() {
+        String refreshToken = issuedRefreshToken();
+        rotationReturns(TokenStore.RotationResult.REUSED);
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> jwtService.refreshToken(refreshToken));
+
+        assertEquals(ErrorCode.REFRESH_TOKEN_REUSED, exception.getErrorCode());
+        verify(tokenEpochService).bump("test@example.com");
+    }
+
+    @Test
+    void refreshToken_SupersededByConcurrentRefresh_RejectedWithoutRevocation() {
+        String refreshToken = issuedRefreshToken();
+        rotationReturns(TokenStore.RotationResult.SUPERSEDED);
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> jwtService.refreshToken(refreshToken));
+
+        assertEquals(ErrorCode.REFRESH_TOKEN_INVALID, exception.getErrorCode());
+        verify(tokenEpochService, never()).bump(anyString());
+    }
+
+    @Test
+    void refreshToken_OutdatedEpoch_RejectedBeforeRotation() {
+        String refreshToken = issuedRefreshToken();
+        when(tokenEpochService.currentEpoch("test@example.com")).thenReturn(1L);
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> jwtService.refreshToken(refreshToken));
+
+        assertEquals(ErrorCode.REFRESH_TOKEN_INVALID, exception.getErrorCode());
+        verify(tokenStore, never()).rotateRefreshToken(anyString(), anyString(), anyString(), anyString(), anyString(),
+                any(Duration.class), any(Duration.class));
+    }
+
+    @Test
+    void refreshToken_AccessToken_Rejected() {
+        TokenPair tokens = jwtService.issueTokens(user);
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> jwtService.refreshToken(tokens.accessToken()));
+
+        assertEquals(ErrorCode.REFRESH_TOKEN_INVALID, exception.getErrorCode());
+        verifyNoInteractions(userRepository);
+    }
+}
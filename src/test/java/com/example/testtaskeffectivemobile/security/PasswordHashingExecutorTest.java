@@ -0,0 +1,85 @@
+package com.example.testtaskeffectivemobile.security;
+
+import com.example.testtaskeffectivemobile.exception.BusinessException;
+import com.example.testtaskeffectivemobile.exception.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.testtaskeffectivemobile.security.PasswordHashingExecutor.Operation.MATCHES;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PasswordHashingExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new PasswordHashingExecutor(1, 1, 5000, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void encoder_HashesOnPoolAndMatches() {
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), executor);
+
+        String hash = encoder.encode("password");
+
+        assertTrue(encoder.matches("password", hash));
+        assertFalse(encoder.matches("other", hash));
+        assertEquals(1, meterRegistry.get("security.password_hashing.duration").tag("operation", "encode").timer().count());
+        assertEquals(2, meterRegistry.get("security.password_hashing.duration").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    void execute_QueueFull_RejectedImmediately() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> executor.execute(MATCHES, () -> {
+            started.countDown();
+            await(release);
+            return true;
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> executor.execute(MATCHES, () -> true));
+        while (meterRegistry.get("security.password_hashing.queue.size").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> executor.execute(MATCHES, () -> true));
+
+        assertEquals(ErrorCode.PASSWORD_HASHING_OVERLOADED, exception.getErrorCode());
+        assertEquals(1, meterRegistry.get("security.password_hashing.rejected").counter().count());
+        release.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void execute_TaskFails_ExceptionPropagated() {
+        assertThrows(IllegalArgumentException.class, () -> executor.execute(MATCHES, () -> {
+            throw new IllegalArgumentException("Invalid hash");
+        }));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.testtaskeffectivemobile.security;
+
+import com.example.testtaskeffectivemobile.controller.CardController;
+import com.example.testtaskeffectivemobile.controller.GlobalExceptionHandler;
+import com.example.testtaskeffectivemobile.entity.Role;
+import com.example.testtaskeffectivemobile.entity.User;
+import com.example.testtaskeffectivemobile.service.CardExportService;
+import com.example.testtaskeffectivemobile.service.CardIssueService;
+import com.example.testtaskeffectivemobile.service.CardService;
+import com.example.testtaskeffectivemobile.service.CardTransactionService;
+import com.example.testtaskeffectivemobile.service.TransferBatchService;
+import com.example.testtaskeffectivemobile.service.TransferEngine;
+import com.example.testtaskeffectivemobile.service.TransferIdempotencyStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.context.junit.jupiter.web.SpringJUnitWebConfig;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Настоящая цепочка фильтров SecurityConfig и JwtFilter вокруг CardController, сервисы - моки
+@SpringJUnitWebConfig
+class SecurityConfigTest {
+
+    private static final String TOKEN = "token";
+    private static final String EMAIL = "test@example.com";
+    private static final String TRANSFER = """
+            {"fromCardId": "a", "toCardId": "b", "amount": 10.00}""";
+
+    @Configuration
+    @EnableWebMvc
+    @Import({SecurityConfig.class, JwtFilter.class, CardController.class, GlobalExceptionHandler.class})
+    static class Config {
+
+        @Bean
+        JwtService jwtService() {
+            return mock(JwtService.class);
+        }
+
+        @Bean
+        UserDetailsService userDetailsService() {
+            return mock(UserDetailsService.class);
+        }
+
+        @Bean
+        CardService cardService() {
+            return mock(CardService.class);
+        }
+
+        @Bean
+        CardExportService cardExportService() {
+            return mock(CardExportService.class);
+        }
+
+        @Bean
+        CardIssueService cardIssueService() {
+            return mock(CardIssueService.class);
+        }
+
+        @Bean
+        CardTransactionService cardTransactionService() {
+            return mock(CardTransactionService.class);
+        }
+
+        @Bean
+        TransferBatchService transferBatchService() {
+            return mock(TransferBatchService.class);
+        }
+
+        @Bean
+        TransferIdempotencyStore transferIdempotencyStore() {
+            return mock(TransferIdempotencyStore.class);
+        }
+
+        @Bean
+        TransferEngine transferEngine() {
+            return mock(TransferEngine.class);
+        }
+    }
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private UserDetailsService userDetailsService;
+
+    @Autowired
+    private TransferEngine transferEngine;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        reset(jwtService, userDetailsService, transferEngine);
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+        User user = User.builder()
+                .id("user123")
+                .email(EMAIL)
+                .enabled(true)
+                .roles(List.of(Role.builder().name("ROLE_GUEST").build()))
+                .build();
+        when(jwtService.extractUserName(TOKEN)).thenReturn(EMAIL);
+        when(userDetailsService.loadUserByUsername(EMAIL)).thenReturn(user);
+        when(jwtService.validateToken(TOKEN, EMAIL)).thenReturn(true);
+    }
+
+    // Перевод через движок завершается на ASYNC диспетчеризации, где JwtFilter уже не выполняется
+    @Test
+    void transfer_EngineCompletesLater_AsyncDispatchReturnsNoContent() throws Exception {
+        CompletableFuture<Void> committed = new CompletableFuture<>();
+        when(transferEngine.submit(any(), eq("user123"))).thenReturn(committed);
+
+        MvcResult result = mockMvc.perform(post("/api/v1/cards/transfer")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + TOKEN)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(TRANSFER))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        committed.complete(null);
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void transfer_WithoutToken_Forbidden() throws Exception {
+        mockMvc.perform(post("/api/v1/cards/transfer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(TRANSFER))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(transferEngine);
+    }
+}
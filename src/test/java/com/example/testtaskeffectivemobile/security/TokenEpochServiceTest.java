@@ -0,0 +1,104 @@
+package com.example.testtaskeffectivemobile.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenEpochServiceTest {
+
+    private static final String USER = "test@example.com";
+    private static final String KEY = "token_epoch:" + USER;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> values;
+
+    private TokenEpochService epochService;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        epochService = new TokenEpochService(redisTemplate, 30_000, 100);
+    }
+
+    @Test
+    void currentEpoch_CachedWithinTtl_ReadsRedisOnce() {
+        when(values.get(KEY)).thenReturn("3");
+
+        assertEquals(3, epochService.currentEpoch(USER));
+        assertEquals(3, epochService.currentEpoch(USER));
+
+        verify(values, times(1)).get(KEY);
+    }
+
+    @Test
+    void currentEpoch_NoStoredEpoch_ReturnsZero() {
+        assertEquals(0, epochService.currentEpoch(USER));
+    }
+
+    @Test
+    void bump_IncrementsPublishesAndInvalidatesLocalEpoch() {
+        when(values.get(KEY)).thenReturn("3", "4");
+        when(values.increment(KEY)).thenReturn(4L);
+        epochService.currentEpoch(USER);
+
+        assertEquals(4, epochService.bump(USER));
+
+        verify(redisTemplate).convertAndSend(TokenEpochService.CHANNEL, USER);
+        assertEquals(4, epochService.currentEpoch(USER));
+    }
+
+    @Test
+    void onMessage_BumpOnAnotherNode_InvalidatesLocalEpoch() {
+        when(values.get(KEY)).thenReturn("3", "4");
+        epochService.currentEpoch(USER);
+
+        epochService.onMessage(new DefaultMessage(
+                TokenEpochService.CHANNEL.getBytes(StandardCharsets.UTF_8), USER.getBytes(StandardCharsets.UTF_8)), null);
+
+        assertEquals(4, epochService.currentEpoch(USER));
+        verify(values, times(2)).get(KEY);
+    }
+
+    @Test
+    void currentEpoch_BumpDuringRedisRead_StaleEpochNotCached() {
+        when(values.increment(KEY)).thenReturn(4L);
+        when(values.get(KEY)).thenAnswer(invocation -> {
+            epochService.bump(USER);
+            return "3";
+        }).thenReturn("4");
+
+        assertEquals(3, epochService.currentEpoch(USER));
+
+        assertEquals(4, epochService.currentEpoch(USER));
+        assertEquals(4, epochService.currentEpoch(USER));
+        verify(values, times(2)).get(KEY);
+    }
+
+    @Test
+    void currentEpoch_CacheFull_EvictsOldestInsteadOfDroppingAll() {
+        epochService = new TokenEpochService(redisTemplate, 30_000, 1);
+        when(values.get(anyString())).thenReturn("1");
+
+        epochService.currentEpoch("first@example.com");
+        epochService.currentEpoch(USER);
+        epochService.currentEpoch(USER);
+
+        verify(values, times(1)).get(KEY);
+        verify(values, times(1)).get("token_epoch:first@example.com");
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.testtaskeffectivemobile.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenStoreTest {
+
+    private static final Duration ACCESS_TTL = Duration.ofHours(1);
+    private static final Duration REFRESH_TTL = Duration.ofDays(7);
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @InjectMocks
+    private TokenStore tokenStore;
+
+    @SuppressWarnings("unchecked")
+    private void scriptReturns(Long code) {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(code);
+    }
+
+    private TokenStore.RotationResult rotate() {
+        return tokenStore.rotateRefreshToken("old-jti", "new-jti", "access-jti", "family1", "test@example.com",
+                ACCESS_TTL, REFRESH_TTL);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rotateRefreshToken_UsesFamilyKey() {
+        scriptReturns(1L);
+
+        assertEquals(TokenStore.RotationResult.ROTATED, rotate());
+
+        verify(redisTemplate).execute(any(RedisScript.class),
+                eq(List.of("refresh_family:family1", "access_token:access-jti")),
+                eq("old-jti"), eq("new-jti"), eq(String.valueOf(REFRESH_TTL.toMillis())),
+                eq("test@example.com"), eq(String.valueOf(ACCESS_TTL.toMillis())));
+    }
+
+    @Test
+    void rotateRefreshToken_MapsScriptCodesExplicitly() {
+        scriptReturns(2L);
+        assertEquals(TokenStore.RotationResult.SUPERSEDED, rotate());
+
+        scriptReturns(3L);
+        assertEquals(TokenStore.RotationResult.REUSED, rotate());
+
+        scriptReturns(0L);
+        assertEquals(TokenStore.RotationResult.MISSING, rotate());
+
+        scriptReturns(null);
+        assertEquals(TokenStore.RotationResult.MISSING, rotate());
+
+        // Неизвестный код не превращается в другой результат по индексу
+        scriptReturns(42L);
+        assertEquals(TokenStore.RotationResult.MISSING, rotate());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void registerTokens_StoresAccessTokenUnderJti() {
+        tokenStore.registerTokens("access-jti", "refresh-jti", "family1", "test@example.com", ACCESS_TTL, REFRESH_TTL);
+
+        verify(redisTemplate).execute(any(RedisScript.class),
+                eq(List.of("access_token:access-jti", "refresh_family:family1")),
+                eq("test@example.com"), eq(String.valueOf(ACCESS_TTL.toMillis())),
+                eq("refresh-jti"), eq(String.valueOf(REFRESH_TTL.toMillis())));
+    }
+
+    @Test
+    void isAccessTokenActive_IssuedJti_LooksUpByJti() {
+        when(redisTemplate.hasKey("access_token:access-jti")).thenReturn(true);
+
+        assertTrue(tokenStore.isAccessTokenActive("access-jti"));
+    }
+
+    @Test
+    void isAccessTokenActive_RevokedOrExpiredJti_Inactive() {
+        when(redisTemplate.hasKey("access_token:access-jti")).thenReturn(false);
+
+        assertFalse(tokenStore.isAccessTokenActive("access-jti"));
+    }
+
+    @Test
+    void isAccessTokenActive_NullJti_InactiveWithoutRedisLookup() {
+        assertFalse(tokenStore.isAccessTokenActive(null));
+
+        verifyNoInteractions(redisTemplate);
+    }
+}
@@ -12,6 +12,7 @@ import com.example.testtaskeffectivemobile.mapper.UserMapper;
 import com.example.testtaskeffectivemobile.repository.RoleRepository;
 import com.example.testtaskeffectivemobile.repository.UserRepository;
 import com.example.testtaskeffectivemobile.security.JwtService;
+import com.example.testtaskeffectivemobile.security.TokenPair;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -97,8 +98,7 @@ class AuthenticationServiceImplTest {
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(authentication);
         when(authentication.getPrincipal()).thenReturn(user);
-        when(jwtService.generateAccessToken(user.getUsername())).thenReturn("accessToken");
-        when(jwtService.generateRefreshToken(user.getUsername())).thenReturn("refreshToken");
+        when(jwtService.issueTokens(user)).thenReturn(new TokenPair("accessToken", "refreshToken"));
         AuthenticationResponse response = authenticationService.login(authRequest);
 
         assertNotNull(response);
@@ -107,8 +107,8 @@ class AuthenticationServiceImplTest {
         assertEquals("Bearer", response.getTokenType());
 
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verify(jwtService).generateAccessToken(user.getUsername());
-        verify(jwtService).generateRefreshToken(user.getUsername());
+        verify(jwtService).issueTokens(user);
+        verifyNoInteractions(userRepository);
     }
 
     @Test
@@ -167,14 +167,15 @@ class AuthenticationServiceImplTest {
                 .refreshToken("refreshToken")
                 .build();
 
-        when(jwtService.refreshToken(refreshRequest.getRefreshToken())).thenReturn("newAccessToken");
+        when(jwtService.refreshToken(refreshRequest.getRefreshToken()))
+                .thenReturn(new TokenPair("newAccessToken", "newRefreshToken"));
 
         AuthenticationResponse response = authenticationService.refreshToken(refreshRequest);
 
 
         assertNotNull(response);
         assertEquals("newAccessToken", response.getAccessToken());
-        assertEquals("refreshToken", response.getRefreshToken());
+        assertEquals("newRefreshToken", response.getRefreshToken());
         assertEquals("Bearer", response.getTokenType());
 
         verify(jwtService).refreshToken(refreshRequest.getRefreshToken());
@@ -0,0 +1,134 @@
+package com.example.testtaskeffectivemobile.service;
+
+import com.example.testtaskeffectivemobile.dto.request.CardExportFormat;
+import com.example.testtaskeffectivemobile.dto.request.CardFilterRequest;
+import com.example.testtaskeffectivemobile.entity.CardStatus;
+import com.example.testtaskeffectivemobile.exception.BusinessException;
+import com.example.testtaskeffectivemobile.exception.ErrorCode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardExportServiceImplTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ResultSet resultSet;
+
+    private CardExportServiceImpl cardExportService;
+
+    @BeforeEach
+    void setUp() {
+        cardExportService = new CardExportServiceImpl(jdbcTemplate, transactionManager, new ObjectMapper(), 500);
+    }
+
+    private void stubRow() throws Exception {
+        when(resultSet.getString("id")).thenReturn("card123");
+        when(resultSet.getString("card_number")).thenReturn("1234567812345678");
+        when(resultSet.getString("activation_date")).thenReturn("2026-01-01");
+        when(resultSet.getString("expiration_date")).thenReturn("2029-01-01");
+        when(resultSet.getString("status")).thenReturn("ACTIVE");
+        when(resultSet.getBigDecimal("balance")).thenReturn(new BigDecimal("1000.00"));
+        when(resultSet.getString("user_id")).thenReturn("user123");
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(resultSet);
+            handler.processRow(resultSet);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void export_Ndjson_OneMaskedCardPerLine() throws Exception {
+        stubRow();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        cardExportService.export(cardExportService.prepare(new CardFilterRequest()), CardExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("{\"id\":\"card123\",\"cardNumber\":\"**** **** ****5678\",\"activationDate\":\"2026-01-01\","
+                + "\"expirationDate\":\"2029-01-01\",\"status\":\"ACTIVE\",\"balance\":1000.00,\"userId\":\"user123\"}",
+                lines[0]);
+    }
+
+    @Test
+    void export_Csv_HeaderAndRows() throws Exception {
+        stubRow();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        cardExportService.export(cardExportService.prepare(new CardFilterRequest()), CardExportFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("id,cardNumber,activationDate,expirationDate,status,balance,userId", lines[0]);
+        assertEquals("card123,**** **** ****5678,2026-01-01,2029-01-01,ACTIVE,1000.00,user123", lines[1]);
+    }
+
+    @Test
+    void export_FilterAndFetchSize_AppliedToForwardOnlyStatement() throws Exception {
+        ArgumentCaptor<PreparedStatementCreator> creator = ArgumentCaptor.forClass(PreparedStatementCreator.class);
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        CardFilterRequest filter = CardFilterRequest.builder()
+                .cardNumber("5678")
+                .status(CardStatus.BLOCKED)
+                .build();
+
+        cardExportService.export(cardExportService.prepare(filter), CardExportFormat.NDJSON, new ByteArrayOutputStream());
+
+        verify(transactionManager).getTransaction(definition.capture());
+        assertTrue(definition.getValue().isReadOnly());
+        verify(jdbcTemplate).query(creator.capture(), any(RowCallbackHandler.class));
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(statement);
+        creator.getValue().createPreparedStatement(connection);
+        verify(connection).prepareStatement(
+                argThat(sql -> sql.endsWith("\nFROM cards WHERE card_number_last4 = ? AND status = ? "
+                        + "ORDER BY created_date, id")),
+                eq(ResultSet.TYPE_FORWARD_ONLY), eq(ResultSet.CONCUR_READ_ONLY));
+        verify(statement).setFetchSize(500);
+        verify(statement).setObject(1, "5678");
+        verify(statement).setObject(2, "BLOCKED");
+    }
+
+    @Test
+    void prepare_InvalidCardNumberFilter_RejectedBeforeQuery() {
+        CardFilterRequest filter = CardFilterRequest.builder()
+                .cardNumber("12ab")
+                .build();
+
+        BusinessException exception = assertThrows(BusinessException.class, () -> cardExportService.prepare(filter));
+
+        assertEquals(ErrorCode.INVALID_CARD_NUMBER_FILTER, exception.getErrorCode());
+        verifyNoInteractions(jdbcTemplate, transactionManager);
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.testtaskeffectivemobile.service;
+
+import com.example.testtaskeffectivemobile.dto.request.CardCreateRequest;
+import com.example.testtaskeffectivemobile.entity.Card;
+import com.example.testtaskeffectivemobile.entity.Money;
+import com.example.testtaskeffectivemobile.entity.User;
+import com.example.testtaskeffectivemobile.exception.BusinessException;
+import com.example.testtaskeffectivemobile.exception.ErrorCode;
+import com.example.testtaskeffectivemobile.mapper.CardMapper;
+import com.example.testtaskeffectivemobile.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CardIssueServiceImplTest {
+
+    private EntityManager entityManager;
+    private UserRepository userRepository;
+    private CardNumberAllocator cardNumberAllocator;
+    private ObjectMapper objectMapper;
+    private CardIssueServiceImpl cardIssueService;
+
+    @BeforeEach
+    void setUp() {
+        entityManager = mock(EntityManager.class);
+        userRepository = mock(UserRepository.class);
+        cardNumberAllocator = mock(CardNumberAllocator.class);
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        cardIssueService = new CardIssueServiceImpl(entityManager, mock(PlatformTransactionManager.class),
+                userRepository, cardNumberAllocator, new CardMapper(), objectMapper, 2, 3);
+
+        when(cardNumberAllocator.allocate()).thenReturn("4000000000000002", "4000000000000010");
+        when(entityManager.getReference(eq(User.class), anyString()))
+                .thenAnswer(invocation -> User.builder().id(invocation.getArgument(1)).build());
+        doAnswer(invocation -> {
+            invocation.<Card>getArgument(0).setId("card-" + invocation.<Card>getArgument(0).getCardNumber());
+            return null;
+        }).when(entityManager).persist(any(Card.class));
+    }
+
+    private static CardCreateRequest request(String userId, String initialBalance) {
+        return CardCreateRequest.builder()
+                .userId(userId)
+                .initialBalance(initialBalance != null ? new BigDecimal(initialBalance) : null)
+                .build();
+    }
+
+    @Test
+    void issue_PersistsValidCardsAndStreamsResultPerRequest() throws Exception {
+        when(userRepository.findExistingIds(anyCollection()))
+                .thenAnswer(invocation -> List.copyOf(invocation.<Set<String>>getArgument(0)).stream()
+                        .filter(id -> id.startsWith("user"))
+                        .toList());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        cardIssueService.issue(List.of(
+                request("user1", "10.00"),
+                request("ghost", null),
+                request("user2", "0.001")), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        JsonNode issued = objectMapper.readTree(lines[0]);
+        assertEquals(0, issued.get("index").asInt());
+        assertEquals("ISSUED", issued.get("status").asText());
+        assertEquals("**** **** ****0002", issued.get("card").get("cardNumber").asText());
+        assertEquals("user1", issued.get("card").get("userId").asText());
+        JsonNode unknownUser = objectMapper.readTree(lines[1]);
+        assertEquals("REJECTED", unknownUser.get("status").asText());
+        assertEquals(ErrorCode.USER_NOT_FOUND.getCode(), unknownUser.get("errorCode").asText());
+        JsonNode fractionalCents = objectMapper.readTree(lines[2]);
+        assertEquals(2, fractionalCents.get("index").asInt());
+        assertEquals(ErrorCode.INVALID_AMOUNT.getCode(), fractionalCents.get("errorCode").asText());
+
+        // Две порции по chunk-size: по одному запросу пользователей, flush и clear на каждую
+        verify(userRepository, times(2)).findExistingIds(anyCollection());
+        verify(entityManager).persist(argThat((Card card) ->
+                card.getBalance().equals(new Money(1000)) && card.getCardNumber().equals("4000000000000002")));
+        verify(entityManager, times(2)).flush();
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    void readCsv_SkipsHeaderAndBlankLines() {
+        String csv = "userId,initialBalance\nuser1,10.50\n\nuser2,\nuser3\n";
+
+        List<CardCreateRequest> requests = cardIssueService.readCsv(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(List.of("user1", "user2", "user3"),
+                requests.stream().map(CardCreateRequest::getUserId).toList());
+        assertEquals(new BigDecimal("10.50"), requests.get(0).getInitialBalance());
+        assertNull(requests.get(1).getInitialBalance());
+        assertNull(requests.get(2).getInitialBalance());
+    }
+
+    @Test
+    void readCsv_MalformedLine_ReportsLineNumber() {
+        String csv = "userId,initialBalance\nuser1,10\nuser2,ten\n";
+
+        BusinessException ex = assertThrows(BusinessException.class, () -> cardIssueService.readCsv(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))));
+
+        assertEquals(ErrorCode.INVALID_CARD_ISSUE_CSV, ex.getErrorCode());
+        assertArrayEquals(new Object[]{3}, ex.getArgs());
+    }
+
+    @Test
+    void validateBatch_RejectsEmptyAndOversizedBatches() {
+        assertThrows(BusinessException.class, () -> cardIssueService.validateBatch(List.of()));
+        assertThrows(BusinessException.class, () -> cardIssueService.validateBatch(List.of(
+                request("u1", null), request("u2", null), request("u3", null), request("u4", null))));
+        assertDoesNotThrow(() -> cardIssueService.validateBatch(List.of(request("u1", null))));
+    }
+
+    @Test
+    void validateBatch_NullItem_RejectedWithIndex() {
+        BusinessException ex = assertThrows(BusinessException.class,
+                () -> cardIssueService.validateBatch(Arrays.asList(request("u1", null), null)));
+
+        assertEquals(ErrorCode.INVALID_CARD_ISSUE_ITEM, ex.getErrorCode());
+        assertArrayEquals(new Object[]{1}, ex.getArgs());
+    }
+
+    @Test
+    void issue_ConstraintViolationOnFlush_RejectsChunkAndIssuesNext() throws Exception {
+        when(userRepository.findExistingIds(anyCollection()))
+                .thenAnswer(invocation -> List.copyOf(invocation.<Set<String>>getArgument(0)));
+        doThrow(new ConstraintViolationException("duplicate card number", new SQLException(), "uk_cards_number"))
+                .doNothing()
+                .when(entityManager).flush();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        cardIssueService.issue(List.of(request("u1", null), request("u2", null), request("u3", null)), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        for (int i = 0; i < 2; i++) {
+            JsonNode rejected = objectMapper.readTree(lines[i]);
+            assertEquals(i, rejected.get("index").asInt());
+            assertEquals("REJECTED", rejected.get("status").asText());
+            assertEquals(ErrorCode.CARD_ISSUE_CHUNK_REJECTED.getCode(), rejected.get("errorCode").asText());
+        }
+        assertEquals("ISSUED", objectMapper.readTree(lines[2]).get("status").asText());
+    }
+
+    @Test
+    void issue_FlushesOutputOncePerChunk() {
+        when(userRepository.findExistingIds(anyCollection()))
+                .thenAnswer(invocation -> List.copyOf(invocation.<Set<String>>getArgument(0)));
+        int[] flushes = new int[1];
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                flushes[0]++;
+            }
+        };
+
+        cardIssueService.issue(List.of(request("u1", null), request("u2", null), request("u3", null)), out);
+
+        // Две порции и закрытие генератора, а не сброс после каждой строки
+        assertEquals(3, flushes[0]);
+    }
+}
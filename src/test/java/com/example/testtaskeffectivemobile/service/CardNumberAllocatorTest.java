@@ -0,0 +1,93 @@
+package com.example.testtaskeffectivemobile.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CardNumberAllocatorTest {
+
+    private static JdbcTemplate blockSequence(long firstBlock) {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        AtomicLong sequence = new AtomicLong(firstBlock);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class)))
+                .thenAnswer(invocation -> sequence.getAndIncrement());
+        return jdbcTemplate;
+    }
+
+    private static boolean isLuhnValid(String number) {
+        String payload = number.substring(0, number.length() - 1);
+        return CardNumberAllocator.luhnCheckDigit(payload) == number.charAt(number.length() - 1) - '0';
+    }
+
+    @Test
+    void luhnCheckDigit_KnownNumber() {
+        assertEquals(6, CardNumberAllocator.luhnCheckDigit("453201511283036"));
+        assertEquals(3, CardNumberAllocator.luhnCheckDigit("7992739871"));
+    }
+
+    @Test
+    void allocate_ReturnsBinPrefixedLuhnValidNumbers() {
+        CardNumberAllocator allocator = new CardNumberAllocator(blockSequence(1), "220220", 10);
+
+        String number = allocator.allocate();
+
+        // Блок 1 начинается с номера счета 10 000
+        assertEquals("2202200000100006", number);
+        assertTrue(isLuhnValid(number));
+    }
+
+    @Test
+    void allocate_ConcurrentThreads_NoDuplicatesAndOneQueryPerBlock() throws Exception {
+        JdbcTemplate jdbcTemplate = blockSequence(1);
+        CardNumberAllocator allocator = new CardNumberAllocator(jdbcTemplate, "400000", 100);
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 5_000; i++) {
+                        String number = allocator.allocate();
+                        assertTrue(numbers.add(number), () -> "Duplicate " + number);
+                        assertTrue(isLuhnValid(number));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(40_000, numbers.size());
+        // 40 000 номеров и не больше 8 брошенных поддиапазонов - пять блоков по 10 000
+        verify(jdbcTemplate, atMost(5)).queryForObject(anyString(), eq(Long.class));
+    }
+
+    @Test
+    void allocate_BinRangeExhausted_ThrowsException() {
+        CardNumberAllocator allocator = new CardNumberAllocator(blockSequence(10_000_000), "40000000", 10);
+
+        assertThrows(IllegalStateException.class, allocator::allocate);
+    }
+
+    @Test
+    void constructor_InvalidBin_ThrowsException() {
+        assertThrows(IllegalStateException.class,
+                () -> new CardNumberAllocator(mock(JdbcTemplate.class), "4000", 10));
+    }
+}
@@ -3,31 +3,48 @@ package com.example.testtaskeffectivemobile.service;
 
 
 import com.example.testtaskeffectivemobile.dto.request.CardCreateRequest;
+import com.example.testtaskeffectivemobile.dto.request.CardFilterRequest;
+import com.example.testtaskeffectivemobile.dto.request.CardPageRequest;
 import com.example.testtaskeffectivemobile.dto.request.TransferRequest;
 import com.example.testtaskeffectivemobile.dto.response.CardDTO;
+import com.example.testtaskeffectivemobile.dto.response.CardPageResponse;
 import com.example.testtaskeffectivemobile.entity.Card;
 import com.example.testtaskeffectivemobile.entity.CardStatus;
+import com.example.testtaskeffectivemobile.entity.Money;
 import com.example.testtaskeffectivemobile.entity.User;
 import com.example.testtaskeffectivemobile.exception.BusinessException;
 import com.example.testtaskeffectivemobile.exception.ErrorCode;
 import com.example.testtaskeffectivemobile.mapper.CardMapper;
+import com.example.testtaskeffectivemobile.repository.CardCursor;
+import com.example.testtaskeffectivemobile.repository.CardListItem;
 import com.example.testtaskeffectivemobile.repository.CardRepository;
+import com.example.testtaskeffectivemobile.repository.CardTransactionRepository;
+import com.example.testtaskeffectivemobile.repository.CardTransfer;
 import com.example.testtaskeffectivemobile.repository.UserRepository;
+import com.example.testtaskeffectivemobile.security.CallerContext;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.intThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,12 +53,21 @@ class CardServiceImplTest {
     @Mock
     private CardRepository cardRepository;
 
+    @Mock
+    private CardTransactionRepository cardTransactionRepository;
+
     @Mock
     private UserRepository userRepository;
 
     @Mock
     private CardMapper cardMapper;
 
+    @Mock
+    private HotCardRegistry hotCardRegistry;
+
+    @Mock
+    private CardNumberAllocator cardNumberAllocator;
+
     @InjectMocks
     private CardServiceImpl cardService;
 
@@ -49,6 +75,12 @@ class CardServiceImplTest {
     private User adminUser;
     private Card card;
     private CardDTO cardDTO;
+    private CallerContext userCaller;
+    private CallerContext adminCaller;
+
+    private static Money money(String amount) {
+        return Money.of(new BigDecimal(amount));
+    }
 
     @BeforeEach
     void setUp() {
@@ -76,10 +108,13 @@ class CardServiceImplTest {
                 .activationDate(LocalDate.now())
                 .expirationDate(LocalDate.now().plusYears(3))
                 .status(CardStatus.ACTIVE)
-                .balance(new BigDecimal("1000.00"))
+                .balance(money("1000.00"))
                 .user(user)
                 .build();
 
+        userCaller = new CallerContext("user123", Set.of("ROLE_GUEST"));
+        adminCaller = new CallerContext("admin123", Set.of(CallerContext.ADMIN_AUTHORITY));
+
         cardDTO = CardDTO.builder()
                 .id("card123")
                 .cardNumber("**** **** **** 5678")
@@ -91,6 +126,97 @@ class CardServiceImplTest {
                 .build();
     }
 
+    @Test
+    void getUserCards_MoreRowsThanPage_ReturnsCursorOfLastCard() {
+        ReflectionTestUtils.setField(cardService, "defaultPageSize", 20);
+        ReflectionTestUtils.setField(cardService, "maxPageSize", 1);
+        LocalDateTime createdDate = LocalDateTime.of(2026, 10, 1, 12, 0);
+        CardDTO next = CardDTO.builder()
+                .id("card456")
+                .userId("user123")
+                .build();
+        when(cardRepository.findListItems(any(), eq(Sort.Direction.DESC), eq(2))).thenReturn(List.of(
+                new CardListItem(cardDTO, createdDate),
+                new CardListItem(next, createdDate.minusMinutes(1))));
+
+        CardPageResponse result = cardService.getUserCards(new CardFilterRequest(),
+                CardPageRequest.builder().size(50).build(), "user123");
+
+        assertEquals(1, result.getContent().size());
+        assertTrue(result.isHasNext());
+        CardCursor cursor = CardCursor.decode(result.getNextCursor());
+        assertEquals("card123", cursor.id());
+        assertEquals(createdDate, cursor.createdDate());
+    }
+
+    @Test
+    void getAllCards_LastPage_HasNoCursor() {
+        ReflectionTestUtils.setField(cardService, "defaultPageSize", 20);
+        ReflectionTestUtils.setField(cardService, "maxPageSize", 100);
+        when(cardRepository.findListItems(any(), eq(Sort.Direction.DESC), eq(21)))
+                .thenReturn(List.of(new CardListItem(cardDTO, LocalDateTime.now())));
+
+        CardPageResponse result = cardService.getAllCards(new CardFilterRequest(), new CardPageRequest());
+
+        assertEquals(1, result.getContent().size());
+        assertFalse(result.isHasNext());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void getCardById_Owner_ReturnsProjectionWithoutLoadingUser() {
+        when(cardRepository.findDtoById("card123")).thenReturn(Optional.of(cardDTO));
+
+        CardDTO result = cardService.getCardById("card123", userCaller);
+
+        assertSame(cardDTO, result);
+        verifyNoInteractions(userRepository, cardMapper);
+    }
+
+    @Test
+    void getCardById_OtherUsersCard_ThrowsAccessDenied() {
+        when(cardRepository.findDtoById("card123")).thenReturn(Optional.of(cardDTO));
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> cardService.getCardById("card123", new CallerContext("other", Set.of("ROLE_GUEST"))));
+
+        assertEquals(ErrorCode.ACCESS_DENIED, exception.getErrorCode());
+    }
+
+    @Test
+    void blockCard_AdminBlocksOtherUsersCard_WithoutLoadingAdmin() {
+        when(cardRepository.findById("card123")).thenReturn(Optional.of(card));
+        when(cardRepository.save(card)).thenReturn(card);
+        when(cardMapper.toDTO(card)).thenReturn(cardDTO);
+
+        cardService.blockCard("card123", adminCaller);
+
+        assertEquals(CardStatus.BLOCKED, card.getStatus());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void activateCard_NotAdmin_ThrowsAccessDeniedBeforeLoadingCard() {
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> cardService.activateCard("card123", userCaller));
+
+        assertEquals(ErrorCode.ACCESS_DENIED, exception.getErrorCode());
+        verifyNoInteractions(cardRepository, userRepository);
+    }
+
+    @Test
+    void getAllCards_MalformedCursor_ThrowsBusinessException() {
+        CardPageRequest page = CardPageRequest.builder()
+                .cursor("not-a-cursor")
+                .build();
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> cardService.getAllCards(new CardFilterRequest(), page));
+
+        assertEquals(ErrorCode.INVALID_CURSOR, exception.getErrorCode());
+        verifyNoInteractions(cardRepository);
+    }
+
     @Test
     void createCard_Success() {
         // Arrange
@@ -100,6 +226,7 @@ class CardServiceImplTest {
                 .build();
 
         when(userRepository.findById("user123")).thenReturn(Optional.of(user));
+        when(cardNumberAllocator.allocate()).thenReturn("4000000000000002");
         when(cardRepository.save(any(Card.class))).thenReturn(card);
         when(cardMapper.toDTO(any(Card.class))).thenReturn(cardDTO);
 
@@ -110,7 +237,7 @@ class CardServiceImplTest {
         assertNotNull(result);
         assertEquals("card123", result.getId());
         verify(userRepository).findById("user123");
-        verify(cardRepository).save(any(Card.class));
+        verify(cardRepository).save(argThat(saved -> "4000000000000002".equals(saved.getCardNumber())));
         verify(cardMapper).toDTO(any(Card.class));
     }
 
@@ -141,7 +268,7 @@ class CardServiceImplTest {
 
         // Act & Assert
         BusinessException exception = assertThrows(BusinessException.class,
-                () -> cardService.blockCard("nonexistent", "user123"));
+                () -> cardService.blockCard("nonexistent", userCaller));
 
         assertEquals(ErrorCode.CARD_NOT_FOUND, exception.getErrorCode());
         verify(cardRepository).findById("nonexistent");
@@ -151,39 +278,73 @@ class CardServiceImplTest {
     @Test
     void transfer_Success() {
         // Arrange
-        Card fromCard = Card.builder()
-                .id("fromCard123")
-                .cardNumber("1111111111111111")
-                .balance(new BigDecimal("1000.00"))
-                .status(CardStatus.ACTIVE)
-                .user(user)
-                .build();
-
-        Card toCard = Card.builder()
-                .id("toCard123")
-                .cardNumber("2222222222222222")
-                .balance(new BigDecimal("500.00"))
-                .status(CardStatus.ACTIVE)
-                .user(user)
-                .build();
-
         TransferRequest request = TransferRequest.builder()
                 .fromCardId("fromCard123")
                 .toCardId("toCard123")
                 .amount(new BigDecimal("300.00"))
                 .build();
 
-        when(cardRepository.findById("fromCard123")).thenReturn(Optional.of(fromCard));
-        when(cardRepository.findById("toCard123")).thenReturn(Optional.of(toCard));
-        when(cardRepository.save(any(Card.class))).thenReturn(fromCard, toCard);
+        when(cardRepository.debit("fromCard123", "user123", money("300.00"))).thenReturn(1);
+        when(cardRepository.credit("toCard123", "user123", money("300.00"))).thenReturn(1);
 
         // Act
         cardService.transfer(request, "user123");
 
         // Assert
-        assertEquals(new BigDecimal("700.00"), fromCard.getBalance());
-        assertEquals(new BigDecimal("800.00"), toCard.getBalance());
-        verify(cardRepository, times(2)).save(any(Card.class));
+        InOrder inOrder = inOrder(cardRepository);
+        inOrder.verify(cardRepository).debit("fromCard123", "user123", money("300.00"));
+        inOrder.verify(cardRepository).credit("toCard123", "user123", money("300.00"));
+        verify(cardTransactionRepository).insertAll(List.of(
+                new CardTransfer("fromCard123", "toCard123", money("300.00"), "user123")));
+        verify(cardRepository, never()).findById(anyString());
+        verify(cardRepository, never()).save(any(Card.class));
+    }
+
+    @Test
+    void transfer_FractionalCents_ThrowsInvalidAmount() {
+        TransferRequest request = TransferRequest.builder()
+                .fromCardId("fromCard123")
+                .toCardId("toCard123")
+                .amount(new BigDecimal("0.001"))
+                .build();
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> cardService.transfer(request, "user123"));
+
+        assertEquals(ErrorCode.INVALID_AMOUNT, exception.getErrorCode());
+        verifyNoInteractions(cardRepository);
+    }
+
+    @Test
+    void transfer_MissingTargetCardId_ThrowsCardNotFound() {
+        TransferRequest request = TransferRequest.builder()
+                .fromCardId("fromCard123")
+                .amount(new BigDecimal("100.00"))
+                .build();
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> cardService.transfer(request, "user123"));
+
+        assertEquals(ErrorCode.CARD_NOT_FOUND, exception.getErrorCode());
+        verifyNoInteractions(cardRepository, cardTransactionRepository);
+    }
+
+    @Test
+    void transfer_ToLowerCardId_CreditsFirst() {
+        TransferRequest request = TransferRequest.builder()
+                .fromCardId("card-b")
+                .toCardId("card-a")
+                .amount(BigDecimal.TEN)
+                .build();
+
+        when(cardRepository.credit("card-a", "user123", money("10.00"))).thenReturn(1);
+        when(cardRepository.debit("card-b", "user123", money("10.00"))).thenReturn(1);
+
+        cardService.transfer(request, "user123");
+
+        InOrder inOrder = inOrder(cardRepository);
+        inOrder.verify(cardRepository).credit("card-a", "user123", money("10.00"));
+        inOrder.verify(cardRepository).debit("card-b", "user123", money("10.00"));
     }
 
     @Test
@@ -192,42 +353,151 @@ class CardServiceImplTest {
         Card fromCard = Card.builder()
                 .id("fromCard123")
                 .cardNumber("1111111111111111")
-                .balance(new BigDecimal("100.00"))
+                .balance(money("100.00"))
                 .status(CardStatus.ACTIVE)
                 .user(user)
                 .build();
 
+        TransferRequest request = TransferRequest.builder()
+                .fromCardId("fromCard123")
+                .toCardId("toCard123")
+                .amount(new BigDecimal("300.00"))
+                .build();
+
+        when(cardRepository.debit("fromCard123", "user123", money("300.00"))).thenReturn(0);
+        when(cardRepository.findById("fromCard123")).thenReturn(Optional.of(fromCard));
+
+        // Act & Assert
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> cardService.transfer(request, "user123"));
+
+        assertEquals(ErrorCode.INSUFFICIENT_FUNDS, exception.getErrorCode());
+        verify(cardRepository, never()).credit(anyString(), anyString(), any());
+        verifyNoInteractions(cardTransactionRepository);
+    }
+
+    @Test
+    void transfer_ForeignTargetCard_ThrowsAccessDenied() {
         Card toCard = Card.builder()
                 .id("toCard123")
-                .cardNumber("2222222222222222")
-                .balance(new BigDecimal("500.00"))
                 .status(CardStatus.ACTIVE)
-                .user(user)
+                .user(adminUser)
                 .build();
-
         TransferRequest request = TransferRequest.builder()
                 .fromCardId("fromCard123")
                 .toCardId("toCard123")
-                .amount(new BigDecimal("300.00"))
+                .amount(BigDecimal.ONE)
                 .build();
 
-        when(cardRepository.findById("fromCard123")).thenReturn(Optional.of(fromCard));
+        when(cardRepository.debit("fromCard123", "user123", money("1.00"))).thenReturn(1);
+        when(cardRepository.credit("toCard123", "user123", money("1.00"))).thenReturn(0);
         when(cardRepository.findById("toCard123")).thenReturn(Optional.of(toCard));
 
-        // Act & Assert
         BusinessException exception = assertThrows(BusinessException.class,
                 () -> cardService.transfer(request, "user123"));
 
-        assertEquals(ErrorCode.INSUFFICIENT_FUNDS, exception.getErrorCode());
-        verify(cardRepository, never()).save(any(Card.class));
+        assertEquals(ErrorCode.ACCESS_DENIED, exception.getErrorCode());
+    }
+
+    @Test
+    void transfer_ToHotCard_CreditsBalanceSlot() {
+        TransferRequest request = TransferRequest.builder()
+                .fromCardId("card-a")
+                .toCardId("card-hot")
+                .amount(BigDecimal.TEN)
+                .build();
+
+        when(hotCardRegistry.slotsOf("card-hot")).thenReturn(8);
+        when(cardRepository.debit("card-a", "user123", money("10.00"))).thenReturn(1);
+        when(cardRepository.creditBalanceSlot(eq("card-hot"), anyInt(), eq("user123"), eq(new BigDecimal("10.00"))))
+                .thenReturn(1);
+
+        cardService.transfer(request, "user123");
+
+        verify(cardRepository).creditBalanceSlot(eq("card-hot"), intThat(slot -> slot >= 0 && slot < 8),
+                eq("user123"), eq(new BigDecimal("10.00")));
+        verify(cardRepository, never()).credit(anyString(), anyString(), any());
+    }
+
+    @Test
+    void transfer_FromHotCard_SweepsSlotsWhenMainBalanceIsShort() {
+        TransferRequest request = TransferRequest.builder()
+                .fromCardId("card-hot")
+                .toCardId("card-z")
+                .amount(BigDecimal.TEN)
+                .build();
+
+        card.setId("card-hot");
+        card.setBalance(money("5.00"));
+        card.setBalanceSlots(8);
+        when(cardRepository.debit("card-hot", "user123", money("10.00"))).thenReturn(0, 1);
+        when(cardRepository.findById("card-hot")).thenReturn(Optional.of(card));
+        when(cardRepository.sweepBalanceSlots("card-hot")).thenReturn(1);
+        when(cardRepository.credit("card-z", "user123", money("10.00"))).thenReturn(1);
+
+        cardService.transfer(request, "user123");
+
+        InOrder inOrder = inOrder(cardRepository);
+        inOrder.verify(cardRepository).debit("card-hot", "user123", money("10.00"));
+        inOrder.verify(cardRepository).sweepBalanceSlots("card-hot");
+        inOrder.verify(cardRepository).debit("card-hot", "user123", money("10.00"));
+        inOrder.verify(cardRepository).credit("card-z", "user123", money("10.00"));
+    }
+
+    @Test
+    void transfer_FromForeignHotCard_RejectedWithoutSweep() {
+        TransferRequest request = TransferRequest.builder()
+                .fromCardId("card-hot")
+                .toCardId("card-z")
+                .amount(BigDecimal.TEN)
+                .build();
+
+        card.setId("card-hot");
+        card.setUser(adminUser);
+        card.setBalanceSlots(8);
+        when(cardRepository.debit("card-hot", "user123", money("10.00"))).thenReturn(0);
+        when(cardRepository.findById("card-hot")).thenReturn(Optional.of(card));
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> cardService.transfer(request, "user123"));
+
+        assertEquals(ErrorCode.ACCESS_DENIED, exception.getErrorCode());
+        verify(cardRepository, never()).sweepBalanceSlots(anyString());
+        verify(cardRepository, never()).credit(anyString(), anyString(), any());
+    }
+
+    @Test
+    void setBalanceSlots_RecreatesSlotsAfterSweep() {
+        ReflectionTestUtils.setField(cardService, "maxBalanceSlots", 64);
+        when(cardRepository.sweepBalanceSlots("card123")).thenReturn(1);
+        when(cardRepository.findDtoById("card123")).thenReturn(Optional.of(cardDTO));
+
+        cardService.setBalanceSlots("card123", 16);
+
+        InOrder inOrder = inOrder(cardRepository);
+        inOrder.verify(cardRepository).sweepBalanceSlots("card123");
+        inOrder.verify(cardRepository).deleteBalanceSlots("card123");
+        inOrder.verify(cardRepository).createBalanceSlots("card123", 16);
+        inOrder.verify(cardRepository).updateBalanceSlots("card123", 16);
+        verify(hotCardRegistry).put("card123", 16);
+    }
+
+    @Test
+    void setBalanceSlots_TooManySlots_ThrowsBusinessException() {
+        ReflectionTestUtils.setField(cardService, "maxBalanceSlots", 64);
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> cardService.setBalanceSlots("card123", 65));
+
+        assertEquals(ErrorCode.INVALID_BALANCE_SLOTS, exception.getErrorCode());
+        verifyNoInteractions(cardRepository);
     }
 
     @Test
     void getUserCardsForTransfer_Success() {
         // Arrange
-        when(cardRepository.findByUserIdAndStatus("user123", CardStatus.ACTIVE))
-                .thenReturn(List.of(card));
-        when(cardMapper.toDTO(any(Card.class))).thenReturn(cardDTO);
+        when(cardRepository.findDtosByUserIdAndStatus("user123", CardStatus.ACTIVE))
+                .thenReturn(List.of(cardDTO));
 
         // Act
         List<CardDTO> result = cardService.getUserCardsForTransfer("user123");
@@ -236,16 +506,16 @@ class CardServiceImplTest {
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals("card123", result.get(0).getId());
-        verify(cardRepository).findByUserIdAndStatus("user123", CardStatus.ACTIVE);
-        verify(cardMapper).toDTO(card);
+        verify(cardRepository).findDtosByUserIdAndStatus("user123", CardStatus.ACTIVE);
+        verifyNoInteractions(cardMapper);
     }
 
     @Test
     void getUserCardsByUserId_Success() {
         // Arrange
         when(userRepository.findById("user123")).thenReturn(Optional.of(user));
-        when(cardRepository.findByUserId("user123")).thenReturn(List.of(card));
-        when(cardMapper.toDTO(any(Card.class))).thenReturn(cardDTO);
+        when(cardRepository.findDtosByUserIdAndStatusExpiringAfter(
+                eq("user123"), eq(CardStatus.ACTIVE), any(LocalDate.class))).thenReturn(List.of(cardDTO));
 
         // Act
         List<CardDTO> result = cardService.getUserCardsByUserId("user123");
@@ -254,8 +524,8 @@ class CardServiceImplTest {
         assertNotNull(result);
         assertEquals(1, result.size());
         verify(userRepository).findById("user123");
-        verify(cardRepository).findByUserId("user123");
-        verify(cardMapper).toDTO(card);
+        verify(cardRepository).findDtosByUserIdAndStatusExpiringAfter(
+                eq("user123"), eq(CardStatus.ACTIVE), any(LocalDate.class));
     }
 
     @Test
@@ -269,6 +539,6 @@ class CardServiceImplTest {
 
         assertEquals(ErrorCode.USER_NOT_FOUND, exception.getErrorCode());
         verify(userRepository).findById("nonexistent");
-        verify(cardRepository, never()).findByUserId(anyString());
+        verify(cardRepository, never()).findDtosByUserIdAndStatusExpiringAfter(anyString(), any(), any());
     }
 }
\ No newline at end of file
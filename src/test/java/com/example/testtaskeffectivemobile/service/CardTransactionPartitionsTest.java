@@ -0,0 +1,100 @@
+package com.example.testtaskeffectivemobile.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardTransactionPartitionsTest {
+
+    private static final String EXISTS = "SELECT to_regclass(?) IS NOT NULL";
+    private static final String STRANDED =
+            "SELECT EXISTS (SELECT 1 FROM card_transactions_default WHERE created_at >= ? AND created_at < ?)";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CardTransactionPartitions partitions;
+    private YearMonth current;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        partitions = new CardTransactionPartitions(jdbcTemplate, transactionManager, meterRegistry, 1);
+        current = YearMonth.now();
+    }
+
+    private double failures() {
+        return meterRegistry.get("cards.transactions.partition.failures").counter().count();
+    }
+
+    @Test
+    void ensurePartitions_MissingMonths_CreatedFromApplicationMonth() {
+        when(jdbcTemplate.queryForObject(eq(EXISTS), eq(Boolean.class), anyString())).thenReturn(false);
+        when(jdbcTemplate.queryForObject(eq(STRANDED), eq(Boolean.class), any(), any())).thenReturn(false);
+
+        partitions.ensurePartitions();
+
+        verify(jdbcTemplate).execute(CardTransactionPartitions.partitionDdl(current));
+        verify(jdbcTemplate).execute(CardTransactionPartitions.partitionDdl(current.plusMonths(1)));
+        verify(jdbcTemplate, never()).execute(contains("DETACH"));
+        assertEquals(0, failures());
+    }
+
+    @Test
+    void ensurePartitions_ExistingMonths_NoDdl() {
+        when(jdbcTemplate.queryForObject(eq(EXISTS), eq(Boolean.class), anyString())).thenReturn(true);
+
+        partitions.ensurePartitions();
+
+        verify(jdbcTemplate, never()).execute(anyString());
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    void ensurePartitions_RowsInDefaultPartition_MovedIntoNewPartition() {
+        YearMonth next = current.plusMonths(1);
+        when(jdbcTemplate.queryForObject(eq(EXISTS), eq(Boolean.class),
+                eq(CardTransactionPartitions.partitionName(current)))).thenReturn(true);
+        when(jdbcTemplate.queryForObject(eq(EXISTS), eq(Boolean.class),
+                eq(CardTransactionPartitions.partitionName(next)))).thenReturn(false);
+        when(jdbcTemplate.queryForObject(eq(STRANDED), eq(Boolean.class), any(), any())).thenReturn(true);
+
+        partitions.ensurePartitions();
+
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).execute("ALTER TABLE card_transactions DETACH PARTITION card_transactions_default");
+        inOrder.verify(jdbcTemplate).execute(CardTransactionPartitions.partitionDdl(next));
+        inOrder.verify(jdbcTemplate).update(contains("INSERT INTO " + CardTransactionPartitions.partitionName(next)),
+                eq(next.atDay(1)), eq(next.plusMonths(1).atDay(1)));
+        inOrder.verify(jdbcTemplate).execute("ALTER TABLE card_transactions ATTACH PARTITION card_transactions_default DEFAULT");
+        assertEquals(0, failures());
+    }
+
+    @Test
+    void ensurePartitions_DdlFails_CountedInMetric() {
+        when(jdbcTemplate.queryForObject(eq(EXISTS), eq(Boolean.class), anyString()))
+                .thenThrow(new DataAccessResourceFailureException("db down"));
+
+        partitions.ensurePartitions();
+
+        assertEquals(2, failures());
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.testtaskeffectivemobile.service;
+
+import com.example.testtaskeffectivemobile.dto.request.CardTransactionPageRequest;
+import com.example.testtaskeffectivemobile.dto.response.CardTransactionDTO;
+import com.example.testtaskeffectivemobile.dto.response.CardTransactionPageResponse;
+import com.example.testtaskeffectivemobile.exception.BusinessException;
+import com.example.testtaskeffectivemobile.exception.ErrorCode;
+import com.example.testtaskeffectivemobile.repository.CardRepository;
+import com.example.testtaskeffectivemobile.repository.CardTransactionCursor;
+import com.example.testtaskeffectivemobile.repository.CardTransactionRepository;
+import com.example.testtaskeffectivemobile.security.CallerContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardTransactionServiceImplTest {
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private CardTransactionRepository cardTransactionRepository;
+
+    @InjectMocks
+    private CardTransactionServiceImpl cardTransactionService;
+
+    private final CallerContext userCaller = new CallerContext("user123", Set.of("ROLE_GUEST"));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cardTransactionService, "defaultPageSize", 2);
+        ReflectionTestUtils.setField(cardTransactionService, "maxPageSize", 100);
+        ReflectionTestUtils.setField(cardTransactionService, "defaultPeriodDays", 90);
+        ReflectionTestUtils.setField(cardTransactionService, "maxPeriodDays", 366);
+    }
+
+    private static CardTransactionDTO transaction(long id, LocalDateTime createdAt) {
+        return CardTransactionDTO.builder()
+                .id(id)
+                .cardId("card123")
+                .counterpartyCardId("card456")
+                .amount(new BigDecimal("-10.00"))
+                .createdAt(createdAt)
+                .build();
+    }
+
+    @Test
+    void getTransactions_ExtraRow_ReturnsCursorOfLastItem() {
+        LocalDateTime to = LocalDateTime.of(2026, 10, 1, 12, 0);
+        when(cardRepository.findOwnerIdById("card123")).thenReturn(Optional.of("user123"));
+        when(cardTransactionRepository.findPage("card123", to.minusDays(90), to, null, 3)).thenReturn(List.of(
+                transaction(3, to.minusHours(1)),
+                transaction(2, to.minusHours(2)),
+                transaction(1, to.minusHours(3))));
+
+        CardTransactionPageResponse page = cardTransactionService.getTransactions("card123",
+                CardTransactionPageRequest.builder().to(to).build(), userCaller);
+
+        assertEquals(2, page.getContent().size());
+        assertTrue(page.isHasNext());
+        assertEquals(new CardTransactionCursor(to.minusHours(2), 2), CardTransactionCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void getTransactions_ForeignCard_ThrowsAccessDenied() {
+        when(cardRepository.findOwnerIdById("card123")).thenReturn(Optional.of("otherUser"));
+
+        BusinessException exception = assertThrows(BusinessException.class, () -> cardTransactionService
+                .getTransactions("card123", new CardTransactionPageRequest(), userCaller));
+
+        assertEquals(ErrorCode.ACCESS_DENIED, exception.getErrorCode());
+        verifyNoInteractions(cardTransactionRepository);
+    }
+
+    @Test
+    void getTransactions_PeriodLongerThanMax_ThrowsException() {
+        when(cardRepository.findOwnerIdById("card123")).thenReturn(Optional.of("user123"));
+        CardTransactionPageRequest request = CardTransactionPageRequest.builder()
+                .from(LocalDateTime.of(2024, 1, 1, 0, 0))
+                .to(LocalDateTime.of(2026, 1, 1, 0, 0))
+                .build();
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> cardTransactionService.getTransactions("card123", request, userCaller));
+
+        assertEquals(ErrorCode.INVALID_TRANSACTION_PERIOD, exception.getErrorCode());
+        verify(cardTransactionRepository, never()).findPage(anyString(), any(), any(), any(), anyInt());
+    }
+}
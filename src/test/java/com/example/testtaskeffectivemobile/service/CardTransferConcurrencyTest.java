@@ -0,0 +1,210 @@
+package com.example.testtaskeffectivemobile.service;
+
+import com.example.testtaskeffectivemobile.dto.request.TransferRequest;
+import com.example.testtaskeffectivemobile.exception.BusinessException;
+import com.example.testtaskeffectivemobile.exception.ErrorCode;
+import com.example.testtaskeffectivemobile.mapper.CardMapper;
+import com.example.testtaskeffectivemobile.repository.CardTransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Нагрузочная проверка переводов на настоящем PostgreSQL, без Docker пропускается
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CardServiceImpl.class, CardMapper.class, HotCardRegistry.class, CardTransactionRepository.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class CardTransferConcurrencyTest {
+
+    private static final String USER_ID = "transfer-user";
+    private static final int CARDS = 8;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000.00");
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private HotCardRegistry hotCardRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM card_transactions WHERE created_by = ?", USER_ID);
+        jdbcTemplate.update("DELETE FROM cards WHERE user_id = ?", USER_ID);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", USER_ID);
+        jdbcTemplate.update("INSERT INTO users (id, first_name, last_name, email, password, is_enabled, "
+                        + "is_account_locked, is_credentials_expered, created_by, created_date) "
+                        + "VALUES (?, 'Transfer', 'User', 'transfer@example.com', 'x', true, false, false, 'TEST', now())",
+                USER_ID);
+        for (int i = 0; i < CARDS; i++) {
+            String number = String.format("40000000000000%02d", i);
+            jdbcTemplate.update("INSERT INTO cards (id, card_number, card_number_last4, activation_date, "
+                            + "expiration_date, status, balance, user_id, created_by, created_date) "
+                            + "VALUES (?, ?, ?, current_date, current_date + 365, 'ACTIVE', ?, ?, 'TEST', now())",
+                    cardId(i), number, number.substring(12), INITIAL_BALANCE, USER_ID);
+        }
+        hotCardRegistry.refresh();
+    }
+
+    private static String cardId(int index) {
+        return "transfer-card-" + index;
+    }
+
+    private BigDecimal totalBalance() {
+        return jdbcTemplate.queryForObject("SELECT SUM(balance) FROM cards WHERE user_id = ?", BigDecimal.class, USER_ID)
+                .add(jdbcTemplate.queryForObject("SELECT COALESCE(SUM(s.balance), 0) FROM card_balance_slots s "
+                        + "JOIN cards c ON c.id = s.card_id WHERE c.user_id = ?", BigDecimal.class, USER_ID));
+    }
+
+    private BigDecimal balance(String cardId) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM cards WHERE id = ?", BigDecimal.class, cardId);
+    }
+
+    private List<ErrorCode> runConcurrently(int threads, int transfers, Callable<TransferRequest> requests)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<ErrorCode>> futures = new ArrayList<>();
+            for (int i = 0; i < transfers; i++) {
+                TransferRequest request = requests.call();
+                futures.add(executor.submit(() -> {
+                    try {
+                        cardService.transfer(request, USER_ID);
+                        return null;
+                    } catch (BusinessException ex) {
+                        return ex.getErrorCode();
+                    }
+                }));
+            }
+            List<ErrorCode> results = new ArrayList<>();
+            for (Future<ErrorCode> future : futures) {
+                // Любое другое исключение (взаимоблокировка, сериализация) провалит тест здесь
+                results.add(future.get(1, TimeUnit.MINUTES));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void transfer_RandomConcurrentTransfers_ConserveMoney() throws Exception {
+        assertRandomTransfersConserveMoney();
+    }
+
+    @Test
+    void transfer_HotCardWithBalanceSlots_ConservesMoney() throws Exception {
+        cardService.setBalanceSlots(cardId(0), 8);
+
+        assertRandomTransfersConserveMoney();
+
+        hotCardRegistry.sweep();
+        BigDecimal inSlots = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(balance), 0) FROM card_balance_slots WHERE card_id = ?", BigDecimal.class, cardId(0));
+        assertEquals(0, BigDecimal.ZERO.compareTo(inSlots));
+    }
+
+    // Горячая карта в обе стороны, между двумя горячими картами и сама на себя, параллельно со сведением слотов:
+    // строки карт берутся по id, слоты карты - после ее строки, поэтому взаимоблокировок нет
+    @Test
+    void transfer_HotCardsBothDirectionsSelfTransfersAndSweeps_NoDeadlock() throws Exception {
+        cardService.setBalanceSlots(cardId(0), 8);
+        cardService.setBalanceSlots(cardId(1), 8);
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService sweeper = Executors.newSingleThreadExecutor();
+        Future<?> sweeps = sweeper.submit(() -> {
+            while (running.get()) {
+                hotCardRegistry.sweep();
+            }
+        });
+        try {
+            List<ErrorCode> results = runConcurrently(16, 4000, () -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int[][] pairs = {{0, 1}, {1, 0}, {0, 2}, {2, 0}, {1, 2}, {2, 1}, {0, 0}, {1, 1}};
+                int[] pair = pairs[random.nextInt(pairs.length)];
+                return TransferRequest.builder()
+                        .fromCardId(cardId(pair[0]))
+                        .toCardId(cardId(pair[1]))
+                        .amount(BigDecimal.valueOf(random.nextInt(1, 30000), 2))
+                        .build();
+            });
+            assertTrue(results.stream().allMatch(code -> code == null || code == ErrorCode.INSUFFICIENT_FUNDS),
+                    () -> "Unexpected rejections: " + results);
+        } finally {
+            running.set(false);
+            sweeper.shutdown();
+        }
+        sweeps.get(1, TimeUnit.MINUTES);
+        assertEquals(0, INITIAL_BALANCE.multiply(BigDecimal.valueOf(CARDS)).compareTo(totalBalance()));
+    }
+
+    private void assertRandomTransfersConserveMoney() throws Exception {
+        List<ErrorCode> results = runConcurrently(16, 4000, () -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int from = random.nextInt(CARDS);
+            int to = (from + 1 + random.nextInt(CARDS - 1)) % CARDS;
+            return TransferRequest.builder()
+                    .fromCardId(cardId(from))
+                    .toCardId(cardId(to))
+                    .amount(BigDecimal.valueOf(random.nextInt(1, 30000), 2))
+                    .build();
+        });
+
+        assertTrue(results.stream().allMatch(code -> code == null || code == ErrorCode.INSUFFICIENT_FUNDS),
+                () -> "Unexpected rejections: " + results);
+        assertEquals(0, INITIAL_BALANCE.multiply(BigDecimal.valueOf(CARDS)).compareTo(totalBalance()));
+        Integer negative = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM cards WHERE user_id = ? AND balance < 0", Integer.class, USER_ID);
+        assertEquals(0, negative);
+        // Журнал сходится с балансами: по две строки на успешный перевод, сумма движений нулевая
+        long applied = results.stream().filter(code -> code == null).count();
+        assertEquals(2 * applied, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM card_transactions WHERE created_by = ?", Long.class, USER_ID));
+        assertEquals(0, BigDecimal.ZERO.compareTo(jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(amount), 0) FROM card_transactions WHERE created_by = ?", BigDecimal.class, USER_ID)));
+    }
+
+    @Test
+    void transfer_ConcurrentDrainOfOneCard_NeverOverdraws() throws Exception {
+        List<ErrorCode> results = runConcurrently(32, 50, () -> TransferRequest.builder()
+                .fromCardId(cardId(0))
+                .toCardId(cardId(1))
+                .amount(new BigDecimal("100.00"))
+                .build());
+
+        assertEquals(10, results.stream().filter(code -> code == null).count());
+        assertEquals(40, results.stream().filter(code -> code == ErrorCode.INSUFFICIENT_FUNDS).count());
+        assertEquals(0, BigDecimal.ZERO.compareTo(balance(cardId(0))));
+        assertEquals(0, new BigDecimal("2000.00").compareTo(balance(cardId(1))));
+    }
+}
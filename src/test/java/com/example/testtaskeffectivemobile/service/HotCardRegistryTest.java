@@ -0,0 +1,57 @@
+package com.example.testtaskeffectivemobile.service;
+
+import com.example.testtaskeffectivemobile.repository.CardRepository;
+import com.example.testtaskeffectivemobile.repository.HotCard;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HotCardRegistryTest {
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @InjectMocks
+    private HotCardRegistry hotCardRegistry;
+
+    @Test
+    void refresh_ReplacesLocalChanges() {
+        hotCardRegistry.put("card-old", 4);
+        when(cardRepository.findHotCards()).thenReturn(List.of(new HotCard("card-hot", 16)));
+
+        hotCardRegistry.refresh();
+
+        assertEquals(16, hotCardRegistry.slotsOf("card-hot"));
+        assertEquals(0, hotCardRegistry.slotsOf("card-old"));
+    }
+
+    @Test
+    void put_ZeroSlots_RemovesCard() {
+        hotCardRegistry.put("card-hot", 8);
+        hotCardRegistry.put("card-hot", 0);
+
+        assertEquals(0, hotCardRegistry.slotsOf("card-hot"));
+        assertTrue(hotCardRegistry.hotCardIds().isEmpty());
+    }
+
+    @Test
+    void sweep_FailureOnOneCard_ContinuesWithOthers() {
+        hotCardRegistry.put("card-a", 4);
+        hotCardRegistry.put("card-b", 4);
+        when(cardRepository.sweepBalanceSlots(anyString()))
+                .thenThrow(new IllegalStateException("lock timeout"))
+                .thenReturn(1);
+
+        hotCardRegistry.sweep();
+
+        verify(cardRepository, times(2)).sweepBalanceSlots(anyString());
+    }
+}
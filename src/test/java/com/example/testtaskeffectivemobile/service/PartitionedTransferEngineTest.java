@@ -0,0 +1,250 @@
+package com.example.testtaskeffectivemobile.service;
+
+import com.example.testtaskeffectivemobile.dto.request.TransferRequest;
+import com.example.testtaskeffectivemobile.entity.Money;
+import com.example.testtaskeffectivemobile.exception.BusinessException;
+import com.example.testtaskeffectivemobile.exception.ErrorCode;
+import com.example.testtaskeffectivemobile.repository.CardTransactionRepository;
+import com.example.testtaskeffectivemobile.repository.CardTransfer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class PartitionedTransferEngineTest {
+
+    private final Map<String, ResultSet> rows = new HashMap<>();
+    // Первая пачка ждет в транзакции, пока тест не откроет затвор: за это время в очереди копятся переводы
+    private final CountDownLatch stalled = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private JdbcTemplate jdbcTemplate;
+    private PlatformTransactionManager transactionManager;
+    private CardTransactionRepository cardTransactionRepository;
+    private CardService cardService;
+    private HotCardRegistry hotCardRegistry;
+    private SimpleMeterRegistry meterRegistry;
+    private PartitionedTransferEngine engine;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        cardTransactionRepository = mock(CardTransactionRepository.class);
+        cardService = mock(CardService.class);
+        hotCardRegistry = mock(HotCardRegistry.class);
+        meterRegistry = new SimpleMeterRegistry();
+
+        // Карты a, b и c активны и принадлежат user123, на каждой по 100
+        card("a", 0);
+        card("b", 0);
+        card("c", 0);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            Object[] arguments = invocation.getArguments();
+            for (int i = 2; i < arguments.length; i++) {
+                if (rows.containsKey(arguments[i])) {
+                    handler.processRow(rows.get(arguments[i]));
+                }
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            stalled.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        release.countDown();
+        if (engine != null) {
+            engine.shutdown();
+        }
+    }
+
+    private void card(String id, int balanceSlots) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getString("id")).thenReturn(id);
+        when(rs.getString("user_id")).thenReturn("user123");
+        when(rs.getString("status")).thenReturn("ACTIVE");
+        when(rs.getBigDecimal("balance")).thenReturn(new BigDecimal("100.00"));
+        when(rs.getInt("balance_slots")).thenReturn(balanceSlots);
+        rows.put(id, rs);
+    }
+
+    private PartitionedTransferEngine engine(int queueCapacity, int timeoutSeconds) {
+        engine = new PartitionedTransferEngine(jdbcTemplate, transactionManager, meterRegistry,
+                cardTransactionRepository, cardService, hotCardRegistry, 1, 16, queueCapacity, timeoutSeconds);
+        return engine;
+    }
+
+    private static TransferRequest transfer(String from, String to, String amount) {
+        return TransferRequest.builder()
+                .fromCardId(from)
+                .toCardId(to)
+                .amount(new BigDecimal(amount))
+                .build();
+    }
+
+    private CompletableFuture<Void> submitStalled(String from, String to, String amount) throws Exception {
+        CompletableFuture<Void> result = engine.submit(transfer(from, to, amount), "user123");
+        assertTrue(stalled.await(5, TimeUnit.SECONDS));
+        return result;
+    }
+
+    private static ErrorCode failure(CompletableFuture<Void> result) throws Exception {
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        return assertInstanceOf(BusinessException.class, exception.getCause()).getErrorCode();
+    }
+
+    private static CardTransfer applied(String from, String to, String amount) {
+        return new CardTransfer(from, to, Money.of(new BigDecimal(amount)), "user123");
+    }
+
+    @Test
+    void submit_NonPositiveAmount_RejectedBeforeQueueing() {
+        engine(16, 10);
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> engine.submit(transfer("a", "b", "0"), "user123"));
+
+        assertEquals(ErrorCode.INVALID_AMOUNT, exception.getErrorCode());
+    }
+
+    @Test
+    void submit_MissingSourceCardId_RejectedBeforeSharding() {
+        engine(16, 10);
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> engine.submit(transfer(null, "b", "10.00"), "user123"));
+
+        assertEquals(ErrorCode.CARD_NOT_FOUND, exception.getErrorCode());
+        verifyNoInteractions(hotCardRegistry, transactionManager);
+    }
+
+    @Test
+    void submit_QueuedTransfers_CommittedInOneBatch() throws Exception {
+        engine(16, 10);
+        CompletableFuture<Void> first = submitStalled("a", "b", "10.00");
+        List<CompletableFuture<Void>> queued = List.of(
+                engine.submit(transfer("b", "c", "20.00"), "user123"),
+                engine.submit(transfer("c", "a", "30.00"), "user123"),
+                engine.submit(transfer("a", "c", "5.00"), "user123"));
+
+        release.countDown();
+
+        first.get(5, TimeUnit.SECONDS);
+        for (CompletableFuture<Void> result : queued) {
+            result.get(5, TimeUnit.SECONDS);
+        }
+        // Три перевода из очереди - одна блокировка карт, одна запись журнала и один COMMIT
+        verify(cardTransactionRepository).insertAll(List.of(
+                applied("b", "c", "20.00"), applied("c", "a", "30.00"), applied("a", "c", "5.00")));
+        verify(jdbcTemplate, times(2)).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+        verify(transactionManager, times(2)).commit(any());
+        assertEquals(3, meterRegistry.get("cards.transfer.engine.batch.size").summary().max());
+    }
+
+    @Test
+    void submit_RejectedTransferInBatch_OthersCommitted() throws Exception {
+        engine(16, 10);
+        CompletableFuture<Void> first = submitStalled("a", "b", "10.00");
+        CompletableFuture<Void> overdraft = engine.submit(transfer("c", "a", "500.00"), "user123");
+        CompletableFuture<Void> next = engine.submit(transfer("c", "b", "40.00"), "user123");
+
+        release.countDown();
+
+        first.get(5, TimeUnit.SECONDS);
+        next.get(5, TimeUnit.SECONDS);
+        assertEquals(ErrorCode.INSUFFICIENT_FUNDS, failure(overdraft));
+        verify(cardTransactionRepository).insertAll(List.of(applied("c", "b", "40.00")));
+    }
+
+    // Перевод, прождавший в очереди дольше таймаута, отклоняется без обращения к БД
+    @Test
+    void submit_DeadlinePassedInQueue_RejectedWithoutDatabase() throws Exception {
+        engine(16, 0);
+
+        CompletableFuture<Void> result = engine.submit(transfer("a", "b", "10.00"), "user123");
+
+        assertEquals(ErrorCode.TRANSFER_ENGINE_OVERLOADED, failure(result));
+        verifyNoInteractions(jdbcTemplate, transactionManager, cardTransactionRepository);
+        assertEquals(1, meterRegistry.get("cards.transfer.engine.rejected").counter().count());
+    }
+
+    // Карта стала горячей, а реестр узла устарел: пачка не может взять слоты, перевод повторяется синхронно
+    @Test
+    void submit_InsufficientFundsOnStaleHotCard_RetriedSynchronously() throws Exception {
+        card("a", 4);
+        engine(16, 10);
+        release.countDown();
+
+        CompletableFuture<Void> result = engine.submit(transfer("a", "b", "150.00"), "user123");
+
+        result.get(5, TimeUnit.SECONDS);
+        verify(hotCardRegistry).put("a", 4);
+        verify(cardService).transfer(argThat(request -> request.getFromCardId().equals("a")
+                && request.getToCardId().equals("b")
+                && request.getAmount().compareTo(new BigDecimal("150.00")) == 0), eq("user123"));
+    }
+
+    @Test
+    void submit_QueueFull_RejectedAsOverloaded() throws Exception {
+        engine(1, 10);
+        submitStalled("a", "b", "10.00");
+        engine.submit(transfer("b", "c", "10.00"), "user123");
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> engine.submit(transfer("c", "a", "10.00"), "user123"));
+
+        assertEquals(ErrorCode.TRANSFER_ENGINE_OVERLOADED, exception.getErrorCode());
+        assertEquals(1, meterRegistry.get("cards.transfer.engine.rejected").counter().count());
+    }
+
+    @Test
+    void shutdown_AcceptedTransfersCommittedAndNewOnesRejected() throws Exception {
+        engine(16, 10);
+        CompletableFuture<Void> first = submitStalled("a", "b", "10.00");
+        CompletableFuture<Void> queued = engine.submit(transfer("b", "c", "20.00"), "user123");
+        CompletableFuture<Void> stopped = CompletableFuture.runAsync(() -> {
+            try {
+                engine.shutdown();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        while ((boolean) ReflectionTestUtils.getField(engine, "running")) {
+            Thread.onSpinWait();
+        }
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> engine.submit(transfer("c", "a", "10.00"), "user123"));
+        release.countDown();
+        stopped.get(5, TimeUnit.SECONDS);
+
+        assertEquals(ErrorCode.TRANSFER_ENGINE_OVERLOADED, exception.getErrorCode());
+        first.get(5, TimeUnit.SECONDS);
+        queued.get(5, TimeUnit.SECONDS);
+        verify(cardTransactionRepository).insertAll(List.of(applied("b", "c", "20.00")));
+    }
+}
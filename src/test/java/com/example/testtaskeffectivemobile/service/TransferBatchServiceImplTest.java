@@ -0,0 +1,170 @@
+package com.example.testtaskeffectivemobile.service;
+
+import com.example.testtaskeffectivemobile.dto.request.TransferBatchMode;
+import com.example.testtaskeffectivemobile.dto.request.TransferBatchRequest;
+import com.example.testtaskeffectivemobile.dto.request.TransferRequest;
+import com.example.testtaskeffectivemobile.dto.response.TransferBatchResponse;
+import com.example.testtaskeffectivemobile.dto.response.TransferResult;
+import com.example.testtaskeffectivemobile.dto.response.TransferResultStatus;
+import com.example.testtaskeffectivemobile.exception.BusinessException;
+import com.example.testtaskeffectivemobile.exception.ErrorCode;
+import com.example.testtaskeffectivemobile.repository.CardRepository;
+import com.example.testtaskeffectivemobile.repository.CardTransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TransferBatchServiceImplTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private CardRepository cardRepository;
+    private HotCardRegistry hotCardRegistry;
+    private TransferBatchServiceImpl transferBatchService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        cardRepository = mock(CardRepository.class);
+        hotCardRegistry = mock(HotCardRegistry.class);
+        transferBatchService = new TransferBatchServiceImpl(jdbcTemplate, mock(PlatformTransactionManager.class),
+                cardRepository, mock(CardTransactionRepository.class), hotCardRegistry, 3);
+
+        // Карты a и b активны и принадлежат user123, на каждой по 100
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getString("id")).thenReturn("a", "b");
+        when(rs.getString("user_id")).thenReturn("user123");
+        when(rs.getString("status")).thenReturn("ACTIVE");
+        when(rs.getBigDecimal("balance")).thenReturn(new BigDecimal("100.00"));
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(rs);
+            handler.processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    private static TransferRequest transfer(String from, String to, String amount) {
+        return TransferRequest.builder()
+                .fromCardId(from)
+                .toCardId(to)
+                .amount(new BigDecimal(amount))
+                .build();
+    }
+
+    private static TransferBatchRequest batch(TransferBatchMode mode, TransferRequest... transfers) {
+        return TransferBatchRequest.builder()
+                .transfers(List.of(transfers))
+                .mode(mode)
+                .build();
+    }
+
+    @Test
+    void transfer_AllOrNothingWithRejection_WritesNothing() {
+        TransferBatchResponse response = transferBatchService.transfer(batch(null,
+                transfer("a", "b", "60.00"),
+                transfer("a", "b", "60.00")), "user123");
+
+        assertEquals(TransferBatchMode.ALL_OR_NOTHING, response.getMode());
+        assertEquals(0, response.getApplied());
+        assertEquals(1, response.getRejected());
+        assertEquals(TransferResultStatus.ROLLED_BACK, response.getResults().get(0).getStatus());
+        TransferResult rejected = response.getResults().get(1);
+        assertEquals(TransferResultStatus.REJECTED, rejected.getStatus());
+        assertEquals(ErrorCode.INSUFFICIENT_FUNDS.getCode(), rejected.getErrorCode());
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList(), anyInt(), any());
+    }
+
+    @Test
+    void transfer_BestEffort_WritesAcceptedTransfers() {
+        TransferBatchResponse response = transferBatchService.transfer(batch(TransferBatchMode.BEST_EFFORT,
+                transfer("a", "b", "60.00"),
+                transfer("a", "b", "60.00"),
+                transfer("b", "missing", "1.00")), "user123");
+
+        assertEquals(1, response.getApplied());
+        assertEquals(2, response.getRejected());
+        assertEquals(TransferResultStatus.APPLIED, response.getResults().get(0).getStatus());
+        assertEquals(ErrorCode.CARD_NOT_FOUND.getCode(), response.getResults().get(2).getErrorCode());
+        verify(jdbcTemplate).batchUpdate(anyString(), eq(List.of("a", "b")), eq(2), any());
+    }
+
+    @Test
+    void transfer_HotDebitCard_SweptBeforeLocking() {
+        when(hotCardRegistry.slotsOf("a")).thenReturn(4);
+
+        transferBatchService.transfer(batch(null, transfer("a", "b", "10.00")), "user123");
+
+        var inOrder = inOrder(cardRepository, jdbcTemplate);
+        inOrder.verify(cardRepository).sweepBalanceSlots("a");
+        inOrder.verify(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+        verify(cardRepository, never()).sweepBalanceSlots("b");
+    }
+
+    @Test
+    void transfer_HotCardMissingFromRegistry_SweptAndRetried() throws Exception {
+        // Карта a горячая в БД, но HotCardRegistry узла о ней еще не знает
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getString("id")).thenReturn("a", "b", "a", "b");
+        when(rs.getString("user_id")).thenReturn("user123");
+        when(rs.getString("status")).thenReturn("ACTIVE");
+        when(rs.getBigDecimal("balance")).thenReturn(new BigDecimal("100.00"));
+        when(rs.getInt("balance_slots")).thenReturn(4, 0, 4, 0);
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(rs);
+            handler.processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+
+        TransferBatchResponse response = transferBatchService.transfer(
+                batch(null, transfer("a", "b", "150.00")), "user123");
+
+        var inOrder = inOrder(cardRepository, jdbcTemplate);
+        inOrder.verify(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+        inOrder.verify(cardRepository).sweepBalanceSlots("a");
+        inOrder.verify(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+        verify(hotCardRegistry).put("a", 4);
+        // Повтор выполняется один раз, даже если и после сведения слотов средств не хватило
+        assertEquals(ErrorCode.INSUFFICIENT_FUNDS.getCode(), response.getResults().get(0).getErrorCode());
+    }
+
+    @Test
+    void transfer_BatchOverMaxSize_ThrowsException() {
+        TransferBatchRequest request = batch(null,
+                transfer("a", "b", "1.00"),
+                transfer("a", "b", "1.00"),
+                transfer("a", "b", "1.00"),
+                transfer("a", "b", "1.00"));
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> transferBatchService.transfer(request, "user123"));
+
+        assertEquals(ErrorCode.INVALID_TRANSFER_BATCH, exception.getErrorCode());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void transfer_NullItem_RejectedBeforeLocking() {
+        TransferBatchRequest request = TransferBatchRequest.builder()
+                .transfers(Arrays.asList(transfer("a", "b", "1.00"), null))
+                .build();
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> transferBatchService.transfer(request, "user123"));
+
+        assertEquals(ErrorCode.INVALID_TRANSFER_BATCH_ITEM, exception.getErrorCode());
+        assertArrayEquals(new Object[]{1}, exception.getArgs());
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.testtaskeffectivemobile.service;
+
+import com.example.testtaskeffectivemobile.dto.request.TransferRequest;
+import com.example.testtaskeffectivemobile.exception.BusinessException;
+import com.example.testtaskeffectivemobile.exception.ErrorCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TransferIdempotencyStoreTest {
+
+    private static final String KEY = "transfer_idempotency:user123:key-1";
+
+    private StringRedisTemplate redisTemplate;
+    private ValueOperations<String, String> values;
+    private TransferIdempotencyStore store;
+    private AtomicInteger executions;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        values = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        store = new TransferIdempotencyStore(redisTemplate, 86_400_000, 120_000, 300_000, 100, 10, 30_000);
+        executions = new AtomicInteger();
+    }
+
+    private static TransferRequest request(String amount) {
+        return TransferRequest.builder()
+                .fromCardId("a")
+                .toCardId("b")
+                .amount(new BigDecimal(amount))
+                .build();
+    }
+
+    private Supplier<CompletableFuture<Void>> transfer(RuntimeException failure) {
+        return () -> {
+            executions.incrementAndGet();
+            if (failure != null) {
+                throw failure;
+            }
+            return CompletableFuture.completedFuture(null);
+        };
+    }
+
+    @Test
+    void execute_Success_StoresOutcomeAndReplaysFromMemory() {
+        when(values.setIfAbsent(eq(KEY), eq("PENDING|a>b:10"), any(Duration.class))).thenReturn(true);
+
+        store.execute("user123", "key-1", request("10.00"), transfer(null)).join();
+        store.execute("user123", "key-1", request("10"), transfer(null)).join();
+
+        assertEquals(1, executions.get());
+        assertEquals(1, store.localReplayCount());
+        verify(values).set(KEY, "OK|a>b:10", Duration.ofDays(1));
+        verify(values, times(1)).setIfAbsent(anyString(), anyString(), any(Duration.class));
+    }
+
+    @Test
+    void execute_StoredBusinessError_ReplayedWithoutTransfer() {
+        when(values.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+        when(values.get(KEY)).thenReturn("INSUFFICIENT_FUNDS|a>b:10");
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> store.execute("user123", "key-1", request("10.00"), transfer(null)));
+
+        assertEquals(ErrorCode.INSUFFICIENT_FUNDS, exception.getErrorCode());
+        assertEquals(0, executions.get());
+        assertEquals(1, store.redisReplayCount());
+    }
+
+    @Test
+    void execute_KeyReusedForDifferentTransfer_Rejected() {
+        when(values.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+        when(values.get(KEY)).thenReturn("OK|a>b:10");
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> store.execute("user123", "key-1", request("20.00"), transfer(null)));
+
+        assertEquals(ErrorCode.IDEMPOTENCY_KEY_REUSED, exception.getErrorCode());
+        assertEquals(0, executions.get());
+    }
+
+    @Test
+    void execute_TransferStillRunning_Conflict() {
+        when(values.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+        when(values.get(KEY)).thenReturn("PENDING|a>b:10");
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> store.execute("user123", "key-1", request("10.00"), transfer(null)));
+
+        assertEquals(ErrorCode.IDEMPOTENCY_KEY_IN_PROGRESS, exception.getErrorCode());
+    }
+
+    @Test
+    void execute_BusinessRejection_StoredAsFinalOutcome() {
+        when(values.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+
+        CompletableFuture<Void> result = store.execute("user123", "key-1", request("10.00"),
+                transfer(new BusinessException(ErrorCode.CARD_NOT_ACTIVE)));
+
+        assertTrue(result.isCompletedExceptionally());
+        verify(values).set(KEY, "CARD_NOT_ACTIVE|a>b:10", Duration.ofDays(1));
+    }
+
+    @Test
+    void execute_UnexpectedFailure_ReleasesKey() {
+        when(values.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+
+        CompletableFuture<Void> result = store.execute("user123", "key-1", request("10.00"),
+                transfer(new IllegalStateException("db down")));
+
+        assertTrue(result.isCompletedExceptionally());
+        verify(redisTemplate).delete(KEY);
+        verify(values, never()).set(anyString(), anyString(), any(Duration.class));
+    }
+
+    @Test
+    void execute_LocalCacheFull_CachesNewOutcomeByEvictingOldest() {
+        store = new TransferIdempotencyStore(redisTemplate, 86_400_000, 120_000, 300_000, 1, 10, 30_000);
+        when(values.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+
+        store.execute("user123", "key-1", request("10.00"), transfer(null)).join();
+        store.execute("user123", "key-2", request("10.00"), transfer(null)).join();
+        store.execute("user123", "key-2", request("10.00"), transfer(null)).join();
+
+        assertEquals(2, executions.get());
+        assertEquals(1, store.localReplayCount());
+    }
+
+    @Test
+    void constructor_PendingTtlNotLongerThanTransferPath_FailsAtStartup() {
+        long maxTransferMillis = TransferIdempotencyStore.maxTransferMillis(10, 30_000);
+
+        assertEquals(100_000, maxTransferMillis);
+        assertThrows(IllegalStateException.class, () -> new TransferIdempotencyStore(
+                redisTemplate, 86_400_000, maxTransferMillis, 300_000, 100, 10, 30_000));
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.testtaskeffectivemobile.service;
+
+import com.example.testtaskeffectivemobile.entity.CardStatus;
+import com.example.testtaskeffectivemobile.entity.Money;
+import com.example.testtaskeffectivemobile.exception.ErrorCode;
+import com.example.testtaskeffectivemobile.repository.CardTransactionRepository;
+import com.example.testtaskeffectivemobile.repository.CardTransfer;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TransferLedgerTest {
+
+    private static Money money(String amount) {
+        return Money.of(new BigDecimal(amount));
+    }
+
+    @Test
+    void apply_TransfersInArrivalOrder_LaterOneSeesEarlierBalance() {
+        TransferLedger ledger = new TransferLedger();
+        ledger.add("a", "user123", CardStatus.ACTIVE, new BigDecimal("100.00"), 0);
+        ledger.add("b", "user123", CardStatus.ACTIVE, new BigDecimal("0.00"), 0);
+
+        assertNull(ledger.apply("a", "b", money("80.00"), "user123"));
+        assertEquals(ErrorCode.INSUFFICIENT_FUNDS,
+                ledger.apply("a", "b", money("30.00"), "user123").getErrorCode());
+        assertNull(ledger.apply("b", "a", money("50.00"), "user123"));
+        assertNull(ledger.apply("a", "b", money("60.00"), "user123"));
+
+        assertEquals(money("10.00"), ledger.balance("a"));
+        assertEquals(money("90.00"), ledger.balance("b"));
+        assertEquals(money("-90.00"), ledger.delta("a"));
+    }
+
+    @Test
+    void apply_RejectedTransfers_LeaveBalancesUntouched() {
+        TransferLedger ledger = new TransferLedger();
+        ledger.add("a", "user123", CardStatus.ACTIVE, new BigDecimal("100.00"), 0);
+        ledger.add("b", "other", CardStatus.BLOCKED, new BigDecimal("0.00"), 0);
+
+        assertEquals(ErrorCode.ACCESS_DENIED,
+                ledger.apply("a", "b", money("10.00"), "user123").getErrorCode());
+        assertEquals(ErrorCode.CARD_NOT_FOUND,
+                ledger.apply("a", "missing", money("10.00"), "user123").getErrorCode());
+        assertEquals(ErrorCode.CARD_NOT_FOUND,
+                ledger.apply(null, "a", money("10.00"), "user123").getErrorCode());
+
+        assertEquals(0, ledger.delta("a").signum());
+        assertEquals(0, ledger.delta("b").signum());
+    }
+
+    @Test
+    void write_NettedDeltas_OneRowPerChangedCard() {
+        TransferLedger ledger = new TransferLedger();
+        ledger.add("a", "user123", CardStatus.ACTIVE, new BigDecimal("100.00"), 0);
+        ledger.add("b", "user123", CardStatus.ACTIVE, new BigDecimal("100.00"), 0);
+        ledger.add("c", "user123", CardStatus.ACTIVE, new BigDecimal("100.00"), 0);
+        ledger.apply("a", "b", money("20.00"), "user123");
+        ledger.apply("b", "a", money("20.00"), "user123");
+        ledger.apply("a", "c", money("5.00"), "user123");
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        CardTransactionRepository cardTransactionRepository = mock(CardTransactionRepository.class);
+
+        assertEquals(2, ledger.write(jdbcTemplate, cardTransactionRepository));
+
+        verify(jdbcTemplate).batchUpdate(anyString(), eq(List.of("a", "c")), eq(2), any());
+        // В журнал пишется каждый перевод, даже если итог по карте нулевой
+        verify(cardTransactionRepository).insertAll(List.of(
+                new CardTransfer("a", "b", money("20.00"), "user123"),
+                new CardTransfer("b", "a", money("20.00"), "user123"),
+                new CardTransfer("a", "c", money("5.00"), "user123")));
+    }
+
+    @Test
+    void write_NoChanges_SkipsDatabase() {
+        TransferLedger ledger = new TransferLedger();
+        ledger.add("a", "user123", CardStatus.ACTIVE, new BigDecimal("100.00"), 0);
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+        assertEquals(0, ledger.write(jdbcTemplate, mock(CardTransactionRepository.class)));
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
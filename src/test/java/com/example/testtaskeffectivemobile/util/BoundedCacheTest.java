@@ -0,0 +1,119 @@
+package com.example.testtaskeffectivemobile.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedCacheTest {
+
+    private static final long NOW = 1_000;
+    private static final long LATER = 60_000;
+
+    @Test
+    void put_Full_EvictsOldestInsertion() {
+        BoundedCache<String, String> cache = new BoundedCache<>(2);
+
+        cache.put("a", "1", LATER);
+        cache.put("b", "2", LATER);
+        cache.put("c", "3", LATER);
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get("a", NOW));
+        assertEquals("2", cache.get("b", NOW));
+        assertEquals("3", cache.get("c", NOW));
+    }
+
+    @Test
+    void put_ExistingKey_ReplacesWithoutEvicting() {
+        BoundedCache<String, String> cache = new BoundedCache<>(2);
+
+        cache.put("a", "1", LATER);
+        cache.put("b", "2", LATER);
+        cache.put("a", "updated", LATER);
+
+        assertEquals("updated", cache.get("a", NOW));
+        assertEquals("2", cache.get("b", NOW));
+    }
+
+    @Test
+    void get_ExpiredEntry_RemovesIt() {
+        BoundedCache<String, String> cache = new BoundedCache<>(2);
+
+        cache.put("a", "1", NOW);
+
+        assertNull(cache.get("a", NOW));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void remove_ManyTimes_KeepsCacheWithinMaxSize() {
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(4);
+
+        for (int i = 0; i < 1_000; i++) {
+            cache.put(i, i, LATER);
+            if (i % 2 == 0) {
+                cache.remove(i);
+            }
+        }
+
+        assertTrue(cache.size() <= 4);
+        assertEquals(999, cache.get(999, NOW));
+    }
+
+    @Test
+    void put_AfterRemove_StaleQueueEntryDoesNotEvictFreshValue() {
+        BoundedCache<String, String> cache = new BoundedCache<>(2);
+
+        cache.put("a", "1", LATER);
+        cache.put("b", "2", LATER);
+        cache.remove("a");
+        cache.put("a", "fresh", LATER);
+        cache.put("c", "3", LATER);
+
+        assertEquals("fresh", cache.get("a", NOW));
+        assertNull(cache.get("b", NOW));
+        assertEquals("3", cache.get("c", NOW));
+    }
+
+    @Test
+    void put_ReplacedValue_OldQueueEntryDoesNotEvictNewValue() {
+        BoundedCache<String, String> cache = new BoundedCache<>(2);
+
+        cache.put("a", "1", LATER);
+        cache.put("b", "2", LATER);
+        cache.put("a", "updated", LATER);
+        cache.put("c", "3", LATER);
+
+        assertEquals("updated", cache.get("a", NOW));
+        assertNull(cache.get("b", NOW));
+        assertEquals("3", cache.get("c", NOW));
+    }
+
+    @Test
+    void remove_ManyTimes_LiveEntriesNotEvicted() {
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(4);
+        for (int i = 0; i < 3; i++) {
+            cache.put(i, i, LATER);
+        }
+
+        for (int i = 100; i < 1_000; i++) {
+            cache.put(i, i, LATER);
+            cache.remove(i);
+        }
+
+        assertEquals(3, cache.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i, cache.get(i, NOW));
+        }
+    }
+
+    @Test
+    void put_ZeroMaxSize_CachingDisabled() {
+        BoundedCache<String, String> cache = new BoundedCache<>(0);
+
+        cache.put("a", "1", LATER);
+
+        assertNull(cache.get("a", NOW));
+        assertEquals(0, cache.size());
+    }
+}